@@ -0,0 +1,162 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * A parallel branch-and-bound search for the largest collection of cards that contains no set (a cap set).
+ * A table with more cards than the largest cap set always holds a set, so its size tells how small the table may be
+ * before the dealer can get stuck reshuffling (see Config.maxCapSetSize).
+ * The search fixes the first cards of the cap by symmetry. In any deck, permuting the values of each feature keeps the
+ * sets, and takes any card to card 0. For featureSize = 3 the cards are the points of the affine space
+ * AG(featureCount, 3) and the sets are its lines, so every affine map (an invertible linear map followed by a
+ * translation) keeps the sets too. The affine group takes any pair of distinct cards to cards 0 and 1 (a translation
+ * takes the first card to 0, and a linear map takes the nonzero difference to 1), which value permutations alone
+ * cannot, so a largest cap may be assumed to hold both. The search then branches on the next card of the cap in
+ * ascending order, on all cores. A branch is dropped when the cards chosen so far plus all the
+ * cards still allowed cannot beat the best cap found.
+ * Usage: Main --cap-set [seconds (60)]
+ */
+public class CapSetSearch {
+
+    private final Config config;
+    private final Util util;
+
+    /**
+     * The time at which the search stops with the best cap found so far.
+     */
+    private final long deadline;
+
+    private volatile boolean timedOut;
+
+    private final AtomicInteger best = new AtomicInteger();
+
+    private int[] bestCap = new int[0];
+
+    public CapSetSearch(Config config, Util util, long timeoutMillis) {
+        this.config = config;
+        this.util = util;
+        this.deadline = System.currentTimeMillis() + timeoutMillis;
+    }
+
+    public static void main(String[] args) {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 60;
+
+        Logger logger = Logger.getLogger("CapSetSearch");
+        Config config = new Config(logger, "config.properties");
+        CapSetSearch search = new CapSetSearch(config, new UtilImpl(config, logger), seconds * 1000);
+
+        long start = System.currentTimeMillis();
+        int[] cap = search.search();
+        System.out.printf("largest cap set found: %d cards (%s) in %d ms%n", cap.length,
+                search.isProven() ? "proven maximum" : "search timed out, a lower bound",
+                System.currentTimeMillis() - start);
+        System.out.println("cards: " + Arrays.toString(cap));
+        System.out.println("to use it, set in config.properties: MaxCapSetSize=" + cap.length);
+        if (search.isProven())
+            System.out.println("a table of " + (cap.length + 1) + " or more cards always holds a set.");
+    }
+
+    /**
+     * Runs the search.
+     *
+     * @return - the card ids of the largest cap set found.
+     */
+    public int[] search() {
+        int fixed = config.featureSize == 3 ? Math.min(2, config.deckSize) : 1;
+        int[] chosen = new int[config.deckSize];
+        long[] candidates = new long[(config.deckSize + Long.SIZE - 1) / Long.SIZE];
+        for (int card = 0; card < config.deckSize; ++card)
+            candidates[card >>> 6] |= 1L << card;
+
+        int size = 0;
+        for (int card = 0; card < fixed; ++card)
+            candidates = choose(chosen, size++, card, candidates);
+        if (candidates == null) return bestCap;
+        record(chosen, size);
+
+        // each branch starts with a different next card, the branches run in parallel
+        long[] first = candidates;
+        int chosenSize = size;
+        IntStream.range(0, config.deckSize).filter(card -> contains(first, card)).parallel().forEach(card -> {
+            int[] branch = Arrays.copyOf(chosen, chosen.length);
+            long[] remaining = choose(branch, chosenSize, card, first);
+            if (remaining != null) search(branch, chosenSize + 1, remaining);
+        });
+        return bestCap;
+    }
+
+    /**
+     * @return - true iff the search ran to completion, so the cap found is a largest one.
+     */
+    public boolean isProven() {
+        return !timedOut;
+    }
+
+    private void search(int[] chosen, int size, long[] candidates) {
+        record(chosen, size);
+        int remaining = count(candidates);
+        if (size + remaining <= best.get()) return;
+        if (System.currentTimeMillis() > deadline) {
+            timedOut = true;
+            return;
+        }
+
+        for (int word = 0; word < candidates.length; ++word)
+            for (long bits = candidates[word]; bits != 0; bits &= bits - 1) {
+                if (size + remaining-- <= best.get()) return;
+                int card = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                long[] next = choose(chosen, size, card, candidates);
+                if (next != null) search(chosen, size + 1, next);
+            }
+    }
+
+    /**
+     * Adds a card to the cap and computes the cards that may still follow it: the candidates above the card that do
+     * not complete a set with the cards of the cap.
+     *
+     * @return - the remaining candidates, or null if the card completes a set with the cap.
+     */
+    private long[] choose(int[] chosen, int size, int card, long[] candidates) {
+        if (config.featureSize != 3) {
+            int[] cards = Arrays.copyOf(chosen, size + 1);
+            cards[size] = card;
+            if (util.containsSet(cards)) return null;
+        }
+
+        long[] next = Arrays.copyOf(candidates, candidates.length);
+        for (int word = 0; word <= card >>> 6; ++word)
+            next[word] = word < card >>> 6 ? 0 : next[word] & -2L << card;
+        if (config.featureSize == 3)
+            for (int i = 0; i < size; ++i) {
+                int third = util.completeSet(chosen[i], card);
+                next[third >>> 6] &= ~(1L << third);
+            }
+        chosen[size] = card;
+        return next;
+    }
+
+    private void record(int[] chosen, int size) {
+        int current;
+        while (size > (current = best.get()))
+            if (best.compareAndSet(current, size)) {
+                synchronized (this) {
+                    if (size > bestCap.length) bestCap = Arrays.copyOf(chosen, size);
+                }
+                return;
+            }
+    }
+
+    private static boolean contains(long[] bits, int card) {
+        return (bits[card >>> 6] & 1L << card) != 0;
+    }
+
+    private static int count(long[] bits) {
+        int count = 0;
+        for (long word : bits)
+            count += Long.bitCount(word);
+        return count;
+    }
+}
@@ -0,0 +1,115 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A memory-mapped table of the card that completes each pair of cards into a set (featureSize = 3 only).
+ * The table is written once to a file and mapped on later runs, so a lookup costs neither startup time nor heap.
+ * The file starts with a header (magic, format version, featureSize, featureCount, entry width) and is regenerated
+ * whenever the header does not match the configuration. Entry (i, j), i < j, is at index i * (2n - i - 1) / 2 + j - i - 1.
+ */
+class CompletionTable {
+
+    private static final int MAGIC = 0x53455443; // "SETC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 5 * Integer.BYTES;
+
+    private final int deckSize;
+
+    /**
+     * The width of an entry in bytes: 2 for decks of up to 65536 cards, 4 otherwise.
+     */
+    private final int entryBytes;
+
+    private final MappedByteBuffer buffer;
+
+    private CompletionTable(int deckSize, int entryBytes, MappedByteBuffer buffer) {
+        this.deckSize = deckSize;
+        this.entryBytes = entryBytes;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Maps the completion table file of the configuration, (re)generating it if it is missing or outdated.
+     *
+     * @param config - the game configuration.
+     * @param util   - the util used to compute the completions when generating the file.
+     * @return - the mapped table, or null if the table would not fit in a single mapping.
+     * @throws IOException - if the file cannot be read or written.
+     */
+    static CompletionTable open(Config config, Util util) throws IOException {
+        int entryBytes = config.deckSize <= 1 << Short.SIZE ? Short.BYTES : Integer.BYTES;
+        long size = HEADER_BYTES + (long) config.deckSize * (config.deckSize - 1) / 2 * entryBytes;
+        if (size > Integer.MAX_VALUE) return null;
+
+        Path file = config.completionTableFile;
+        if (!matches(file, config, entryBytes, size))
+            generate(file, config, util, entryBytes, size);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new CompletionTable(config.deckSize, entryBytes, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    private static boolean matches(Path file, Config config, int entryBytes, long size) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != size) return false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) ;
+            header.flip();
+            return header.remaining() == HEADER_BYTES && header.getInt() == MAGIC && header.getInt() == VERSION
+                    && header.getInt() == config.featureSize && header.getInt() == config.featureCount
+                    && header.getInt() == entryBytes;
+        }
+    }
+
+    /**
+     * Writes the table to a temporary file and moves it into place, so a partially written table is never mapped.
+     */
+    private static void generate(Path file, Config config, Util util, int entryBytes, long size) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory == null ? Paths.get(".") : directory, "completions", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                out.putInt(MAGIC).putInt(VERSION).putInt(config.featureSize).putInt(config.featureCount)
+                        .putInt(entryBytes);
+                for (int i = 0; i < config.deckSize; ++i)
+                    for (int j = i + 1; j < config.deckSize; ++j) {
+                        int third = util.completeSet(i, j);
+                        if (entryBytes == Short.BYTES) out.putShort((short) third);
+                        else out.putInt(third);
+                    }
+                out.force();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @param first  - the first card id.
+     * @param second - the second card id.
+     * @return - the id of the card that completes the two cards into a set.
+     */
+    int third(int first, int second) {
+        if (first == second) return first;
+        if (first > second) {
+            int card = first;
+            first = second;
+            second = card;
+        }
+        long index = (long) first * (2L * deckSize - first - 1) / 2 + second - first - 1;
+        int offset = (int) (HEADER_BYTES + index * entryBytes);
+        return entryBytes == Short.BYTES ? buffer.getShort(offset) & 0xFFFF : buffer.getInt(offset);
+    }
+}
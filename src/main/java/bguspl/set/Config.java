@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Properties;
@@ -36,6 +37,51 @@ public class Config {
      */
     public final int deckSize;
 
+    /**
+     * The minimal number of cards from which findSets searches in parallel (on the fork/join common pool)
+     */
+    public final int parallelFindSetsThreshold;
+
+    /**
+     * The maximal number of sets in the deck for which an index of all the sets is built (see Util.setIndex)
+     */
+    public final long setIndexMaxSets;
+
+    /**
+     * The minimal deck size from which the card completing each pair of cards is looked up in a precomputed table file
+     */
+    public final int completionTableMinDeckSize;
+
+    /**
+     * The minimal deck size from which the deck and the table use structures sized by the table instead of the deck
+     * (the deck is dealt lazily and the slot of each card is hashed)
+     */
+    public final int largeDeckMinSize;
+
+    /**
+     * The file of the precomputed pair completion table (next to the configuration file)
+     */
+    public final Path completionTableFile;
+
+    /**
+     * The number of cards in the largest collection of cards holding no set (a cap set), or an upper bound of it, or
+     * -1 if unknown. Defaults to the known maximum for featureSize = 3 and featureCount <= 6, and to a bound for more
+     * features (see capSetSizeBound; see CapSetSearch for other decks).
+     */
+    public final int maxCapSetSize;
+
+    /**
+     * The maximal number of table contents for which the existence of a set is cached (0 disables the cache). Used
+     * when the sets on the table cannot be counted incrementally.
+     */
+    public final int setCacheSize;
+
+    /**
+     * True iff the incremental count of the sets on the table is checked against Util.findSets after every change
+     * (for debugging)
+     */
+    public final boolean setCounterSelfCheck;
+
     /**
      * The number of human players in the game.
      */
@@ -81,6 +127,17 @@ public class Config {
      */
     public final long tableDelayMillis;
 
+    /**
+     * True iff the table changes are applied by a single owner thread from a mailbox (see ActorTable) rather than
+     * under the table lock
+     */
+    public final boolean actorTable;
+
+    /**
+     * The capacity of the mailbox of the changes waiting for the table owner thread (see ActorTable)
+     */
+    public final int tableMailboxSize;
+
     /**
      * The number of milliseconds to pause at the end of the game before closing
      */
@@ -141,6 +198,28 @@ public class Config {
      */
     private final int[][] playerKeys;
 
+    /**
+     * The sizes of the largest cap sets for featureSize = 3 and featureCount = 1..6.
+     */
+    private static final int[] knownMaxCapSetSizes = {2, 4, 9, 20, 45, 112};
+
+    /**
+     * Bounds the size of a cap set (see maxCapSetSize). For featureSize = 3 and more features than known, the deck
+     * splits into 3 parallel hyperplanes (by the value of one feature), each a deck of one feature less, and a cap set
+     * meets each of them in a cap set, so it holds at most 3 times the largest cap set of one feature less.
+     *
+     * @param featureSize  - the number of values per feature.
+     * @param featureCount - the number of features.
+     * @return - the size of the largest cap set or an upper bound of it, or -1 if unknown.
+     */
+    private static int capSetSizeBound(int featureSize, int featureCount) {
+        if (featureSize != 3 || featureCount < 1) return -1;
+        int bound = knownMaxCapSetSizes[Math.min(featureCount, knownMaxCapSetSizes.length) - 1];
+        for (int n = knownMaxCapSetSizes.length; n < featureCount; ++n)
+            bound *= 3;
+        return bound;
+    }
+
     /**
      * The default scan codes data (this is the same as in the default config.properties file)
      */
@@ -177,10 +256,14 @@ public class Config {
     }
 
     public Config(Logger logger, String configFilename) {
-        this(logger, loadProperties(configFilename, logger));
+        this(logger, loadProperties(configFilename, logger), configFilename);
     }
 
     public Config(Logger logger, Properties properties) {
+        this(logger, properties, null);
+    }
+
+    private Config(Logger logger, Properties properties, String configFilename) {
 
         // logger settings
         Level logLevel = Level.parse(properties.getProperty("LogLevel", "ALL"));
@@ -197,6 +280,17 @@ public class Config {
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
+        parallelFindSetsThreshold = Integer.parseInt(properties.getProperty("ParallelFindSetsThreshold", "729"));
+        setIndexMaxSets = Long.parseLong(properties.getProperty("SetIndexMaxSets", "1000000"));
+        setCacheSize = Integer.parseInt(properties.getProperty("SetCacheSize", "1024"));
+        setCounterSelfCheck = Boolean.parseBoolean(properties.getProperty("SetCounterSelfCheck", "False"));
+        completionTableMinDeckSize = Integer.parseInt(properties.getProperty("CompletionTableMinDeckSize", "6561"));
+        largeDeckMinSize = Integer.parseInt(properties.getProperty("LargeDeckMinSize", "19683"));
+        String completionTableName = properties.getProperty("CompletionTableFile", "completions.bin");
+        completionTableFile = configFilename == null || configFilename.isEmpty() ? Paths.get(completionTableName)
+                : Paths.get(configFilename).resolveSibling(completionTableName);
+        maxCapSetSize = Integer.parseInt(properties.getProperty("MaxCapSetSize",
+                Integer.toString(capSetSizeBound(featureSize, featureCount))));
 
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
@@ -210,6 +304,8 @@ public class Config {
         penaltyFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PenaltyFreezeSeconds", "3")) * 1000.0);
         tableDelayMillis = (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
         endGamePauseMillies = (long) (Double.parseDouble(properties.getProperty("EndGamePauseSeconds", "5")) * 1000.0);
+        actorTable = Boolean.parseBoolean(properties.getProperty("ActorTable", "False"));
+        tableMailboxSize = Integer.parseInt(properties.getProperty("TableMailboxSize", "256"));
 
         // ui settings
         String[] names = properties.getProperty("PlayerNames", "Player 1, Player 2").split(",");
@@ -0,0 +1,227 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A command line analytics mode that estimates, by Monte Carlo simulation on all cores, how set density behaves for
+ * the Rows, Columns, FeatureSize and FeatureCount of config.properties:
+ * 1. how often a fresh deal of a full table has no set (so the dealer must reshuffle right away);
+ * 2. how many times per game the dealer reshuffles because the table has no set (removeAllCardsFromTable cycles).
+ * A simulated game collects a set whenever the table has one (refilling from the deck) and reshuffles otherwise,
+ * until no set is left in the deck and the table together.
+ * Usage: Main --deal-statistics [deals (1000000)] [games (100000)] [seed]
+ */
+public class DealStatistics {
+
+    /**
+     * The z value of a two-sided 95% confidence interval.
+     */
+    private static final double Z95 = 1.96;
+
+    /**
+     * A game that reshuffles this many times is stopped (e.g. a table too small to ever hold a set).
+     */
+    private static final int MAX_RESHUFFLES = 1000;
+
+    /**
+     * The number of deals simulated at startup to estimate the chance of a table without a set (see warnIfNoSetLikely).
+     */
+    private static final int STARTUP_DEALS = 10_000;
+
+    /**
+     * The estimated chance of a deal without a set from which a startup warning is issued.
+     */
+    private static final double LIKELY_NO_SET = 0.1;
+
+    private final Config config;
+    private final Util util;
+    private final long seed;
+
+    /**
+     * The deck in order, per thread. Every deal partially shuffles it and then undoes its swaps, so each deal depends
+     * only on the seed and its index, not on the deals the thread ran before.
+     */
+    private final ThreadLocal<int[]> decks;
+
+    public DealStatistics(Config config, Util util, long seed) {
+        this.config = config;
+        this.util = util;
+        this.seed = seed;
+        this.decks = ThreadLocal.withInitial(() -> IntStream.range(0, config.deckSize).toArray());
+    }
+
+    public static void main(String[] args) {
+        int deals = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+        Logger logger = Logger.getLogger("DealStatistics");
+        Config config = new Config(logger, "config.properties");
+        DealStatistics statistics = new DealStatistics(config, new UtilImpl(config, logger), seed);
+
+        System.out.printf("deck: %d cards (FeatureSize=%d, FeatureCount=%d), table: %dx%d = %d slots, seed: %d%n",
+                config.deckSize, config.featureSize, config.featureCount, config.rows, config.columns,
+                config.tableSize, seed);
+
+        long start = System.currentTimeMillis();
+        long noSet = statistics.countDealsWithoutSet(deals);
+        double p = (double) noSet / deals;
+        double margin = Z95 * Math.sqrt(p * (1 - p) / deals);
+        System.out.printf("fresh deals without a set: %d of %d = %.5f%% (95%% CI %.5f%% .. %.5f%%) in %d ms%n",
+                noSet, deals, 100 * p, 100 * Math.max(0, p - margin), 100 * Math.min(1, p + margin),
+                System.currentTimeMillis() - start);
+
+        start = System.currentTimeMillis();
+        int[] reshuffles = statistics.simulateGames(games);
+        printDistribution(reshuffles);
+        System.out.printf("simulated %d games in %d ms%n", games, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Warns when fresh deals of a full table are likely to have no set, so the dealer would reshuffle often. The chance
+     * is only estimated when the table is not larger than the largest cap set (see Config.maxCapSetSize), as a larger
+     * table always holds a set.
+     *
+     * @param config - the game configuration.
+     * @param util   - the game utilities.
+     * @param logger - the logger to warn in.
+     */
+    public static void warnIfNoSetLikely(Config config, Util util, Logger logger) {
+        if (config.tableSize >= config.deckSize || config.maxCapSetSize >= 0 && config.maxCapSetSize < config.tableSize)
+            return;
+
+        long noSet = new DealStatistics(config, util, 0).countDealsWithoutSet(STARTUP_DEALS);
+        double p = (double) noSet / STARTUP_DEALS;
+        if (p >= LIKELY_NO_SET)
+            logger.warning(String.format("a table of %d cards has no set in about %.0f%% of the deals, so the dealer "
+                    + "may have to reshuffle repeatedly (see Main --deal-statistics).", config.tableSize, 100 * p));
+    }
+
+    /**
+     * Deals random full tables from the whole deck and counts the deals that have no set.
+     *
+     * @param deals - the number of deals.
+     * @return - the number of deals without a set.
+     */
+    public long countDealsWithoutSet(int deals) {
+        int cards = Math.min(config.tableSize, config.deckSize);
+        return IntStream.range(0, deals).parallel().filter(i -> {
+            SplittableRandom random = new SplittableRandom(seed + i);
+            int[] deck = decks.get();
+            int[] swaps = new int[cards];
+            shuffle(deck, cards, deck.length, random, swaps);
+            int[] table = Arrays.copyOf(deck, cards);
+            unshuffle(deck, cards, swaps);
+            return !util.containsSet(table);
+        }).count();
+    }
+
+    /**
+     * Simulates whole games and returns the number of reshuffles of each one.
+     *
+     * @param games - the number of games.
+     * @return - the number of reshuffles per game.
+     */
+    public int[] simulateGames(int games) {
+        return IntStream.range(0, games).parallel()
+                .map(i -> simulateGame(new SplittableRandom(~seed + (long) i * 0x9E3779B97F4A7C15L)))
+                .toArray();
+    }
+
+    /**
+     * Plays a game the way the dealer does: the deck is shuffled and dealt, a set is collected whenever the table has
+     * one, and the table is returned to the deck and reshuffled whenever it has none.
+     *
+     * @param random - the random source of the game.
+     * @return - the number of reshuffles in the game.
+     */
+    int simulateGame(SplittableRandom random) {
+        // cards[0 .. onTable) are on the table, cards[onTable .. left) are in the deck
+        int[] cards = IntStream.range(0, config.deckSize).toArray();
+        int left = cards.length;
+        int onTable = Math.min(config.tableSize, left);
+        shuffle(cards, left, left, random, null);
+
+        int reshuffles = 0;
+        while (reshuffles < MAX_RESHUFFLES) {
+            int[] table = Arrays.copyOf(cards, onTable);
+            if (util.containsSet(table)) {
+                int[] set = util.canStreamSets() ? util.unpackSet(util.streamSets(table).findFirst().getAsLong())
+                        : util.findSets(Arrays.stream(table).boxed().collect(Collectors.toList()), 1).get(0);
+                for (int card : set) {
+                    int index = indexOf(cards, onTable, card);
+                    cards[index] = cards[--onTable];
+                    cards[onTable] = cards[--left];
+                }
+                int refill = Math.min(config.tableSize - onTable, left - onTable);
+                onTable += refill;
+            } else {
+                if (onTable == left || !util.containsSet(Arrays.copyOf(cards, left))) break;
+                ++reshuffles;
+                shuffle(cards, left, left, random, null);
+            }
+        }
+        return reshuffles;
+    }
+
+    private static int indexOf(int[] cards, int length, int card) {
+        for (int i = 0; i < length; ++i)
+            if (cards[i] == card) return i;
+        throw new IllegalStateException("card " + card + " is not on the table");
+    }
+
+    /**
+     * Moves count random cards of cards[0 .. length) to cards[0 .. count) (partial Fisher-Yates).
+     * The swap of each position i is recorded in swaps[i], if swaps is not null.
+     */
+    private static void shuffle(int[] cards, int count, int length, SplittableRandom random, int[] swaps) {
+        for (int i = 0; i < count; ++i) {
+            int j = i < length - 1 ? random.nextInt(i, length) : i;
+            if (swaps != null)
+                swaps[i] = j;
+            swap(cards, i, j);
+        }
+    }
+
+    /**
+     * Undoes a partial shuffle of count cards, given its swaps.
+     */
+    private static void unshuffle(int[] cards, int count, int[] swaps) {
+        for (int i = count - 1; i >= 0; --i)
+            swap(cards, i, swaps[i]);
+    }
+
+    private static void swap(int[] cards, int i, int j) {
+        int card = cards[i];
+        cards[i] = cards[j];
+        cards[j] = card;
+    }
+
+    /**
+     * Prints the mean number of reshuffles per game with its 95% confidence interval, and the distribution.
+     */
+    private static void printDistribution(int[] reshuffles) {
+        int max = Arrays.stream(reshuffles).max().orElse(0);
+        long[] histogram = new long[max + 1];
+        double sum = 0, squares = 0;
+        for (int count : reshuffles) {
+            ++histogram[count];
+            sum += count;
+            squares += (double) count * count;
+        }
+        int n = reshuffles.length;
+        double mean = sum / n;
+        double deviation = n > 1 ? Math.sqrt(Math.max(0, (squares - n * mean * mean) / (n - 1))) : 0;
+        double margin = Z95 * deviation / Math.sqrt(n);
+        System.out.printf("reshuffles per game: mean %.4f (95%% CI %.4f .. %.4f), sd %.4f, max %d%n",
+                mean, mean - margin, mean + margin, deviation, max);
+        for (int count = 0; count <= max; ++count)
+            if (histogram[count] > 0)
+                System.out.printf("  %4d reshuffles: %9d games (%.3f%%)%n", count, histogram[count],
+                        100.0 * histogram[count] / n);
+    }
+}
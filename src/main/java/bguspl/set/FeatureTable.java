@@ -0,0 +1,157 @@
+package bguspl.set;
+
+/**
+ * A table of the features of every card in the deck, computed once per configuration.
+ * The features of each card are packed into a single long word: lane k (bits k*bits .. k*bits + bits - 1) holds the
+ * k-th base featureSize digit of the card id, i.e. the feature at index featureCount - 1 - k of cardToFeatures.
+ * For featureSize = 3 a lane is two bits (00, 01 or 10), which lets whole words be combined bit-parallel (see
+ * complete): up to 32 features are handled in a handful of bitwise operations, without a loop over the features.
+ * For a large deck (see Config.largeDeckMinSize) the words are not stored, but computed from the card id on the fly.
+ */
+class FeatureTable {
+
+    /**
+     * The number of bits each feature takes in a packed word (0 if the features do not fit in a word).
+     */
+    final int bits;
+
+    /**
+     * A mask of the lowest bits of a word (a single lane).
+     */
+    final long mask;
+
+    /**
+     * The packed features per card id (null if the features of a card do not fit in a single word, or if the deck is
+     * large, see word).
+     */
+    private final long[] words;
+
+    private final int featureSize;
+    private final int featureCount;
+
+    /**
+     * The value of a byte of a packed word (four lanes) as a base 3 number (featureSize = 3 only).
+     */
+    private final int[] byteValue;
+
+    /**
+     * The weight of each byte of a packed word in a card id, i.e. 81^k for the k-th byte (featureSize = 3 only).
+     */
+    private final int[] byteWeight;
+
+    /**
+     * The byte of a packed word (four lanes) per base 3 number below 81, the inverse of byteValue (featureSize = 3
+     * only).
+     */
+    private final long[] byteWord;
+
+    FeatureTable(Config config) {
+        featureSize = config.featureSize;
+        featureCount = config.featureCount;
+        int laneBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(config.featureSize - 1));
+        if (config.featureSize > Long.SIZE || laneBits * config.featureCount > Long.SIZE) {
+            bits = 0;
+            mask = 0;
+            words = null;
+            byteValue = null;
+            byteWeight = null;
+            byteWord = null;
+            return;
+        }
+
+        bits = laneBits;
+        mask = (1L << bits) - 1;
+
+        if (config.featureSize == 3) {
+            byteValue = new int[1 << Byte.SIZE];
+            byteWord = new long[81];
+            for (int b = 0; b < byteValue.length; ++b) {
+                for (int k = 3, weight = 27; k >= 0; --k, weight /= 3)
+                    byteValue[b] += (b >>> 2 * k & 3) * weight;
+                if ((b & b >>> 1 & 0x55) == 0) // only lanes 00, 01 and 10
+                    byteWord[byteValue[b]] = b;
+            }
+            byteWeight = new int[(config.featureCount + 3) / 4];
+            for (int k = 0, weight = 1; k < byteWeight.length; ++k, weight *= 81)
+                byteWeight[k] = weight;
+        } else {
+            byteValue = null;
+            byteWeight = null;
+            byteWord = null;
+        }
+
+        if (config.deckSize >= config.largeDeckMinSize) {
+            words = null;
+            return;
+        }
+        words = new long[config.deckSize];
+        for (int card = 0; card < config.deckSize; ++card)
+            words[card] = pack(card);
+    }
+
+    /**
+     * @return - true iff the features of a card fit in a single packed word (see word).
+     */
+    boolean isPacked() {
+        return bits != 0;
+    }
+
+    /**
+     * Returns the packed features of a card (the table must be packed, see isPacked).
+     *
+     * @param card - the card id.
+     * @return - the packed features of the card.
+     */
+    long word(int card) {
+        return words != null ? words[card] : pack(card);
+    }
+
+    // packs the base featureSize digits of a card id, one byte (four lanes) at a time for featureSize = 3
+    private long pack(int card) {
+        long word = 0;
+        if (byteWord != null) {
+            for (int shift = 0; card != 0; shift += Byte.SIZE, card /= 81)
+                word |= byteWord[card % 81] << shift;
+            return word;
+        }
+        for (int k = 0; k < featureCount; ++k, card /= featureSize)
+            word |= (long) (card % featureSize) << (k * bits);
+        return word;
+    }
+
+    /**
+     * @return - true iff the table holds two bit lanes of a featureSize = 3 deck (see complete).
+     */
+    boolean isBitParallel() {
+        return byteValue != null;
+    }
+
+    /**
+     * Computes the packed features of the only card that completes two cards into a legal set (featureSize = 3 only).
+     * Where the two cards agree the third card repeats their value; where they differ it takes the missing value,
+     * which in the 00/01/10 encoding is the complement of their union (01|10 -> 00, 00|01 -> 10, 00|10 -> 01).
+     *
+     * @param first  - the packed features of the first card.
+     * @param second - the packed features of the second card.
+     * @return - the packed features of the completing card.
+     */
+    static long complete(long first, long second) {
+        long differ = first ^ second;
+        differ = (differ | differ >>> 1) & 0x5555555555555555L;
+        differ |= differ << 1;
+        return first & ~differ | ~(first | second) & differ;
+    }
+
+    /**
+     * Converts packed features back to a card id (featureSize = 3 only), one byte (four lanes) at a time.
+     *
+     * @param word - the packed features.
+     * @return - the card id.
+     */
+    int card(long word) {
+        int card = 0;
+        for (int k = 0; k < byteWeight.length; ++k, word >>>= Byte.SIZE)
+            card += byteValue[(int) (word & 0xFF)] * byteWeight[k];
+        return card;
+    }
+}
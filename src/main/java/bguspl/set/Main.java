@@ -1,5 +1,6 @@
 package bguspl.set;
 
+import bguspl.set.ex.ActorTable;
 import bguspl.set.ex.Dealer;
 import bguspl.set.ex.Player;
 import bguspl.set.ex.Table;
@@ -34,17 +35,28 @@ public class Main {
     /**
      * The game's main function. Creates all data structures and initializes the threads.
      *
-     * @param args - unused.
+     * @param args - empty to play, or --deal-statistics / --cap-set followed by the arguments of the tool (see
+     *             DealStatistics and CapSetSearch).
      */
     public static void main(String[] args) {
 
+        if (args.length > 0 && args[0].equals("--deal-statistics")) {
+            DealStatistics.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--cap-set")) {
+            CapSetSearch.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         mainThread = Thread.currentThread();
 
         // create the game environment objects
         logger = initLogger();
         ThreadLogger.logStart(logger, Thread.currentThread().getName());
         Config config = new Config(logger, "config.properties");
-        Util util = new UtilImpl(config);
+        Util util = new UtilImpl(config, logger);
+        DealStatistics.warnIfNoSetLikely(config, util, logger);
 
         Player[] players = new Player[config.players];
         UserInterface ui = null;
@@ -61,7 +73,7 @@ public class Main {
         Env env = new Env(logger, config, ui, util);
 
         // create the game entities
-        Table table = new Table(env);
+        Table table = config.actorTable ? new ActorTable(env) : new Table(env);
         dealer = new Dealer(env, table, players);
         for (int i = 0; i < players.length; i++)
             players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
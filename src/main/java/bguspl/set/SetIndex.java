@@ -0,0 +1,150 @@
+package bguspl.set;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * An inverted index of every set in the deck: the card ids of each set, and for each card the ids of the sets that
+ * contain it. All the data is held in primitive arrays.
+ */
+public class SetIndex {
+
+    /**
+     * The number of cards in a set (i.e. config.featureSize).
+     */
+    private final int setSize;
+
+    /**
+     * The card ids of each set: set s is at setCards[s * setSize .. (s + 1) * setSize - 1], in ascending order.
+     */
+    private final int[] setCards;
+
+    /**
+     * The sets of card c are at cardSets[cardOffsets[c] .. cardOffsets[c + 1] - 1].
+     */
+    private final int[] cardOffsets;
+
+    /**
+     * The ids of the sets of each card (see cardOffsets).
+     */
+    private final int[] cardSets;
+
+    /**
+     * Indexes all the sets of the deck.
+     *
+     * @param config - the game configuration.
+     * @param util   - the util used to enumerate the sets.
+     * @param count  - the number of sets in the deck (see countSets).
+     */
+    SetIndex(Config config, Util util, int count) {
+        setSize = config.featureSize;
+        setCards = new int[count * setSize];
+        cardOffsets = new int[config.deckSize + 1];
+        cardSets = new int[count * setSize];
+
+        int[] deck = new int[config.deckSize];
+        for (int card = 0; card < deck.length; ++card)
+            deck[card] = card;
+        PrimitiveIterator.OfLong sets = util.streamSets(deck).iterator();
+        for (int next = 0; sets.hasNext(); )
+            for (int card : util.unpackSet(sets.nextLong())) {
+                setCards[next++] = card;
+                cardOffsets[card + 1]++;
+            }
+
+        for (int card = 0; card < config.deckSize; ++card)
+            cardOffsets[card + 1] += cardOffsets[card];
+        int[] filled = new int[config.deckSize];
+        for (int set = 0; set < count; ++set)
+            for (int i = 0; i < setSize; ++i) {
+                int card = setCards[set * setSize + i];
+                cardSets[cardOffsets[card] + filled[card]++] = set;
+            }
+    }
+
+    /**
+     * Counts the sets in a full deck: ordered tuples of featureSize cards in which every feature is either the same
+     * (featureSize ways) or all different (featureSize! ways), minus the tuples of one repeated card, per ordering.
+     *
+     * @param config - the game configuration.
+     * @return - the number of sets in the deck (Long.MAX_VALUE if it does not fit in a long).
+     */
+    public static long countSets(Config config) {
+        try {
+            long orderings = 1;
+            for (int i = 2; i <= config.featureSize; ++i)
+                orderings = Math.multiplyExact(orderings, i);
+            long tuples = 1, repeated = 1;
+            for (int i = 0; i < config.featureCount; ++i) {
+                tuples = Math.multiplyExact(tuples, config.featureSize + orderings);
+                repeated = Math.multiplyExact(repeated, config.featureSize);
+            }
+            return (tuples - repeated) / orderings;
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * @return - the number of sets in the deck.
+     */
+    public int setCount() {
+        return setCards.length / setSize;
+    }
+
+    /**
+     * @param set - the set id.
+     * @param i   - the index of a card in the set (0 to featureSize - 1).
+     * @return - the i-th card id of the set (in ascending order).
+     */
+    public int card(int set, int i) {
+        return setCards[set * setSize + i];
+    }
+
+    /**
+     * @param card - the card id.
+     * @return - the number of sets that contain the card.
+     */
+    public int setsOfCard(int card) {
+        return cardOffsets[card + 1] - cardOffsets[card];
+    }
+
+    /**
+     * @param card - the card id.
+     * @param i    - the index of a set of the card (0 to setsOfCard(card) - 1).
+     * @return - the id of the i-th set that contains the card.
+     */
+    public int setOfCard(int card, int i) {
+        return cardSets[cardOffsets[card] + i];
+    }
+
+    /**
+     * Checks if a collection of cards contains a set, by looking up the sets of each card.
+     *
+     * @param cards   - the card ids.
+     * @param present - a presence bitmap of the cards (bit c of present[c / 64] is set iff card c is in cards).
+     * @return - true iff some set has all its cards in the collection.
+     */
+    public boolean containsSet(int[] cards, long[] present) {
+        for (int card : cards)
+            for (int j = cardOffsets[card]; j < cardOffsets[card + 1]; ++j) {
+                int set = cardSets[j];
+                // each set is checked from its first card only
+                if (setCards[set * setSize] != card) continue;
+                boolean complete = true;
+                for (int i = 1; i < setSize && complete; ++i) {
+                    int other = setCards[set * setSize + i];
+                    complete = (present[other >>> 6] & 1L << other) != 0;
+                }
+                if (complete) return true;
+            }
+        return false;
+    }
+
+    /**
+     * @return - the approximate number of bytes the index takes on the heap.
+     */
+    public long footprintBytes() {
+        final int arrayHeader = 16;
+        return 3L * arrayHeader + 4L * (setCards.length + cardOffsets.length + cardSets.length);
+    }
+}
@@ -18,6 +18,20 @@ public interface UserInterface {
      */
     void removeCard(int slot);
 
+    /**
+     * Draw the card images corresponding to the card ids in the specified slots, in one update of the display.
+     * @param cards - the card ids.
+     * @param slots - the slot numbers (slots[i] for cards[i]).
+     */
+    void placeCards(int[] cards, int[] slots);
+
+    /**
+     * Draw empty card images in the specified slots and remove all players names text from them, in one update of
+     * the display.
+     * @param slots - the slot numbers.
+     */
+    void removeCards(int[] slots);
+
     /**
      * Draw a player name text in the specified slot.
      * @param player - the card id.
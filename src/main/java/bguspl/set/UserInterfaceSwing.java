@@ -4,10 +4,13 @@ import bguspl.set.ex.Player;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.io.FileNotFoundException;
 import java.net.URL;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -103,7 +106,15 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
     private class GamePanel extends JLayeredPane {
 
         private final Image emptyCard;
+        /**
+         * The images of all the cards, loaded once (null for a large deck, see Config.largeDeckMinSize).
+         */
         private final Image[] deck;
+        /**
+         * For a large deck, the card images loaded so far, least recently shown first (loaded on demand and bounded, so
+         * that the images of the whole deck are not loaded).
+         */
+        private final Map<Integer, Image> shownCards;
         private final Image[][] grid;
         private final boolean[][][] playerTokens;
         private final JLabel[][] tokenText;
@@ -122,11 +133,23 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
             // init deck and load all pictures from png files
             assert config.featureSize < 10; // otherwise there will be naming conflicts
 
-            // load the image resources
-            deck = new Image[config.deckSize];
-            for (int i = 0; i < config.deckSize; ++i)
-                deck[i] = loadImageResource("cards/" + intInBaseToPaddedString(i, config.featureCount, config.featureSize) + ".png");
+            // load the image resources, or only the shown ones for a large deck
             emptyCard = loadImageResource("cards/empty_card.png");
+            if (config.deckSize < config.largeDeckMinSize) {
+                deck = new Image[config.deckSize];
+                for (int i = 0; i < config.deckSize; ++i)
+                    deck[i] = loadCardImage(i);
+                shownCards = null;
+            } else {
+                deck = null;
+                int capacity = 2 * config.tableSize;
+                shownCards = new LinkedHashMap<Integer, Image>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Integer, Image> eldest) {
+                        return size() > capacity;
+                    }
+                };
+            }
 
             grid = new Image[config.rows][config.columns];
             tokenText = new JLabel[config.rows][config.columns];
@@ -148,10 +171,39 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
             }
         }
 
+        private Image cardImage(int card) {
+            if (deck != null)
+                return deck[card];
+            synchronized (shownCards) {
+                return shownCards.computeIfAbsent(card, this::loadCardImage);
+            }
+        }
+
+        private Image loadCardImage(int card) {
+            String name = "cards/" + intInBaseToPaddedString(card, config.featureCount, config.featureSize) + ".png";
+            if (getClass().getClassLoader().getResource(name) != null)
+                return loadImageResource(name);
+            return drawCardImage(card); // no image for this deck
+        }
+
+        // draws a card with no image resource: an empty card with the card features written on it
+        private Image drawCardImage(int card) {
+            BufferedImage image = new BufferedImage(config.cellWidth, config.cellHeight, BufferedImage.TYPE_INT_ARGB);
+            Graphics g = image.createGraphics();
+            g.drawImage(emptyCard, 0, 0, config.cellWidth, config.cellHeight, null);
+            g.setColor(Color.BLACK);
+            g.setFont(new Font("Monospaced", Font.BOLD, config.fontSize));
+            String features = intInBaseToPaddedString(card, config.featureCount, config.featureSize);
+            FontMetrics metrics = g.getFontMetrics();
+            g.drawString(features, (config.cellWidth - metrics.stringWidth(features)) / 2, config.cellHeight / 2);
+            g.dispose();
+            return image;
+        }
+
         private void placeCard(int slot, int card) {
             int row = slot / config.columns;
             int column = slot % config.columns;
-            grid[row][column] = deck[card];
+            grid[row][column] = cardImage(card);
             validate();
             repaint();
         }
@@ -164,6 +216,26 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
             repaint();
         }
 
+        private void placeCards(int[] slots, int[] cards) {
+            for (int i = 0; i < slots.length; i++)
+                grid[slots[i] / config.columns][slots[i] % config.columns] = cardImage(cards[i]);
+            validate();
+            repaint();
+        }
+
+        private void removeCards(int[] slots) {
+            for (int slot : slots) {
+                int row = slot / config.columns;
+                int column = slot % config.columns;
+                grid[row][column] = emptyCard;
+                for (int player = 0; player < playerTokens.length; player++)
+                    playerTokens[player][row][column] = false;
+                tokenText[row][column].setText("");
+            }
+            validate();
+            repaint();
+        }
+
         private void placeToken(int player, int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
@@ -284,6 +356,16 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         gamePanel.removeCard(slot);
     }
 
+    @Override
+    public void placeCards(int[] cards, int[] slots) {
+        gamePanel.placeCards(slots, cards);
+    }
+
+    @Override
+    public void removeCards(int[] slots) {
+        gamePanel.removeCards(slots);
+    }
+
     @Override
     public void placeToken(int player, int slot) {
         gamePanel.placeToken(player, slot);
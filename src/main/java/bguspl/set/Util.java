@@ -1,6 +1,7 @@
 package bguspl.set;
 
 import java.util.List;
+import java.util.stream.LongStream;
 
 /**
  * An interface for general utilities provided for convenience.
@@ -40,6 +41,62 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Computes the only card that completes two cards into a legal set (for config.featureSize = 3 only).
+     *
+     * @param first  - the first card id.
+     * @param second - the second card id.
+     * @return - the id of the completing card, or -1 if config.featureSize is not 3.
+     */
+    int completeSet(int first, int second);
+
+    /**
+     * Checks if the given cards contain at least one legal set.
+     *
+     * @param cards - an array of card ids.
+     * @return - true iff some of the cards form a legal set.
+     */
+    boolean containsSet(int[] cards);
+
+    /**
+     * Returns the index of all the sets in the deck, waiting for it to be built (see readySetIndex).
+     *
+     * @return - the set index, or null if the deck has more than config.setIndexMaxSets sets.
+     */
+    SetIndex setIndex();
+
+    /**
+     * Returns the index of all the sets in the deck if it is built, and starts building it in the background
+     * otherwise, so that callers can search for sets meanwhile instead of waiting.
+     *
+     * @return - the set index, or null if it is not built yet or if the deck has too many sets (see setIndex).
+     */
+    SetIndex readySetIndex();
+
+    /**
+     * @return - true iff the sets of this configuration can be enumerated lazily (see streamSets).
+     */
+    boolean canStreamSets();
+
+    /**
+     * Lazily enumerates the sets in the given cards, in the same order as findSets. Each set is packed into a long (see
+     * unpackSet), so consumers can stop early or count the sets without allocating them. The stream may be made
+     * parallel.
+     *
+     * @param cards - an array of card ids.
+     * @return - a stream of the packed sets.
+     * @throws UnsupportedOperationException - if the sets of this configuration do not fit in a long.
+     */
+    LongStream streamSets(int[] cards);
+
+    /**
+     * Unpacks a set enumerated by streamSets.
+     *
+     * @param set - the packed set.
+     * @return - the card ids of the set, in ascending order.
+     */
+    int[] unpackSet(long set);
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
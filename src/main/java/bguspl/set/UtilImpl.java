@@ -1,10 +1,18 @@
 package bguspl.set;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
  * The implementation of the UserInterface interface.
@@ -13,8 +21,54 @@ public class UtilImpl implements Util {
 
     private final Config config;
 
+    private final Logger logger;
+
+    /**
+     * The packed features of every card in the deck.
+     */
+    private final FeatureTable features;
+
+    /**
+     * The number of bits a card id takes in a packed set (see streamSets).
+     */
+    private final int cardBits;
+
+    /**
+     * The background build of the index of all the sets in the deck (started on demand, see readySetIndex).
+     */
+    private volatile CompletableFuture<SetIndex> setIndexBuild;
+
+    /**
+     * The persisted table of the card completing each pair of cards (null if not used, see completeSet).
+     */
+    private final CompletionTable completions;
+
     public UtilImpl(Config config) {
+        this(config, null);
+    }
+
+    public UtilImpl(Config config, Logger logger) {
         this.config = config;
+        this.logger = logger;
+        this.features = new FeatureTable(config);
+        this.cardBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(config.deckSize - 1));
+        this.completions = config.featureSize == 3 && config.deckSize >= config.completionTableMinDeckSize
+                ? openCompletionTable() : null;
+    }
+
+    private CompletionTable openCompletionTable() {
+        try {
+            long start = System.currentTimeMillis();
+            CompletionTable table = CompletionTable.open(config, this);
+            if (logger != null)
+                logger.info("completion table " + config.completionTableFile + (table == null ? " is too large" : " mapped")
+                        + " in " + (System.currentTimeMillis() - start) + " ms.");
+            return table;
+        } catch (IOException e) {
+            if (logger != null)
+                logger.severe("cannot use completion table " + config.completionTableFile + ": " + e.getMessage());
+            return null;
+        }
     }
 
     private void cardToFeatures(int card, int[] features) {
@@ -40,6 +94,42 @@ public class UtilImpl implements Util {
 
     @Override
     public boolean testSet(int[] cards) {
+        if (cards.length == 3 && features.isBitParallel())
+            return FeatureTable.complete(features.word(cards[0]), features.word(cards[1])) == features.word(cards[2]);
+        if (!features.isPacked() || cards.length == 0) return testSetByFeatures(cards);
+        return testSetByLanes(cards);
+    }
+
+    /**
+     * Checks if an array of cards forms a legal set by comparing their packed features one lane at a time.
+     *
+     * @param cards - the array of cards (at least one).
+     * @return - true iff the array forms a legal set.
+     */
+    boolean testSetByLanes(int[] cards) {
+        // each feature must be either the same in all cards or different in all cards
+        for (int shift = 0; shift < config.featureCount * features.bits; shift += features.bits) {
+            long first = features.word(cards[0]) >>> shift & features.mask;
+            boolean sameSame = true;
+            long seen = 0;
+            for (int card : cards) {
+                long feature = features.word(card) >>> shift & features.mask;
+                sameSame &= feature == first;
+                seen |= 1L << feature;
+            }
+            boolean butDifferent = Long.bitCount(seen) == cards.length;
+            if (sameSame == butDifferent) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if an array of cards forms a legal set by comparing their feature matrix (see cardsToFeatures).
+     *
+     * @param cards - the array of cards.
+     * @return - true iff the array forms a legal set.
+     */
+    boolean testSetByFeatures(int[] cards) {
         int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
         for (int i = 0; i < config.featureCount; ++i) {
             boolean sameSame = true, butDifferent = true;
@@ -66,6 +156,314 @@ public class UtilImpl implements Util {
 
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
+        if (!canStreamSets())
+            return findSetsByCombinations(deck, count);
+
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        LongStream sets = streamSets(cards);
+        if (cards.length >= config.parallelFindSetsThreshold)
+            sets = sets.parallel();
+        if (count < Integer.MAX_VALUE)
+            sets = sets.limit(Math.max(count, 1)); // the first sets in combination order, at least one as searched
+        return sets.mapToObj(this::unpackSet).collect(Collectors.toCollection(LinkedList::new));
+    }
+
+    @Override
+    public boolean containsSet(int[] cards) {
+        // the index checks the sets of each card, while completion (featureSize = 3) checks each pair of cards
+        SetIndex index = readySetIndex();
+        if (index != null && (config.featureSize > 3 || index.setsOfCard(0) < cards.length / 2)) {
+            long[] present = new long[(config.deckSize + Long.SIZE - 1) / Long.SIZE];
+            for (int card : cards)
+                present[card >>> 6] |= 1L << card;
+            return index.containsSet(cards, present);
+        }
+        if (!canStreamSets())
+            return !findSetsByCombinations(Arrays.stream(cards).boxed().collect(Collectors.toList()), 1).isEmpty();
+        return streamSets(cards).findFirst().isPresent();
+    }
+
+    @Override
+    public SetIndex setIndex() {
+        CompletableFuture<SetIndex> build = buildSetIndex();
+        return build == null ? null : build.join();
+    }
+
+    @Override
+    public SetIndex readySetIndex() {
+        CompletableFuture<SetIndex> build = buildSetIndex();
+        return build == null ? null : build.getNow(null);
+    }
+
+    /**
+     * Starts building the set index in the background on the first call.
+     *
+     * @return - the build of the set index, or null if the deck has more than config.setIndexMaxSets sets.
+     */
+    private CompletableFuture<SetIndex> buildSetIndex() {
+        CompletableFuture<SetIndex> build = setIndexBuild;
+        if (build != null || !canStreamSets() || SetIndex.countSets(config) > config.setIndexMaxSets)
+            return build;
+
+        synchronized (this) {
+            if (setIndexBuild == null)
+                setIndexBuild = CompletableFuture.supplyAsync(() -> {
+                    long start = System.currentTimeMillis();
+                    SetIndex index = new SetIndex(config, this, (int) SetIndex.countSets(config));
+                    if (logger != null)
+                        logger.info("set index built: " + index.setCount() + " sets, " + index.footprintBytes()
+                                + " bytes, in " + (System.currentTimeMillis() - start) + " ms.");
+                    return index;
+                });
+            return setIndexBuild;
+        }
+    }
+
+    @Override
+    public LongStream streamSets(int[] cards) {
+        if (!canStreamSets())
+            throw new UnsupportedOperationException("sets of " + config.featureSize + " cards out of "
+                    + config.deckSize + " cannot be enumerated lazily");
+        return StreamSupport.longStream(new SetSpliterator(cards), false);
+    }
+
+    @Override
+    public int[] unpackSet(long set) {
+        int[] cards = new int[config.featureSize];
+        for (int i = 0; i < cards.length; ++i, set >>>= cardBits)
+            cards[i] = (int) (set & (1L << cardBits) - 1);
+        return cards;
+    }
+
+    @Override
+    public boolean canStreamSets() {
+        return (config.featureSize == 3 || config.featureSize > 3 && features.isPacked())
+                && config.featureSize * cardBits <= Long.SIZE;
+    }
+
+    /**
+     * Packs the ids of a set (in ascending order) into a long, cardBits bits per card, the first card lowest.
+     *
+     * @param set - the card ids of the set, sorted in place.
+     * @return - the packed set.
+     */
+    private long packSet(int[] set) {
+        Arrays.sort(set);
+        long packed = 0;
+        for (int i = set.length - 1; i >= 0; --i)
+            packed = packed << cardBits | set[i];
+        return packed;
+    }
+
+    /**
+     * Lazily enumerates the sets in an array of cards, whose first card (in the order of the array) is at an index in
+     * the range [first, to). Each call to tryAdvance resumes the search where the previous one found a set, so
+     * consumers only pay for the sets they take. Splitting hands the lower half of the range of first indices that
+     * were not started yet, along with the combination in progress, to a new spliterator.
+     * For featureSize = 3 each pair of cards is completed to its only possible third card, which is looked up in a
+     * presence map of the cards (see Positions). Otherwise, combinations are built one card at a time and dropped as soon as one of
+     * their features is neither the same in all their cards nor different in all of them.
+     */
+    private class SetSpliterator implements Spliterator.OfLong {
+
+        private final int[] cards;
+
+        /**
+         * The presence map of the cards, shared by all the splits (featureSize = 3 only).
+         */
+        private final Positions position;
+
+        /**
+         * The next index of a first card to start from.
+         */
+        private int first;
+
+        /**
+         * The index after the last index of a first card.
+         */
+        private int to;
+
+        /**
+         * The current partial combination: the indices of its cards, the values seen in each feature per depth, the
+         * next index to try per depth and the number of cards chosen (-1 when no first card was started).
+         */
+        private final int[] combination;
+        private final long[] seen;
+        private final int[] next;
+        private int depth = -1;
+
+        /**
+         * A buffer for sorting the cards of a set before packing it.
+         */
+        private final int[] set = new int[config.featureSize];
+
+        SetSpliterator(int[] cards) {
+            this(cards, config.featureSize == 3 ? new Positions(cards) : null, 0, cards.length);
+        }
+
+        private SetSpliterator(int[] cards, Positions position, int first, int to) {
+            this.cards = cards;
+            this.position = position;
+            this.first = first;
+            this.to = to;
+            this.combination = new int[config.featureSize];
+            this.next = new int[config.featureSize];
+            this.seen = position == null ? new long[config.featureSize * config.featureCount] : null;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (position != null ? advanceByCompletion() : advanceByBacktracking()) {
+                for (int i = 0; i < set.length; ++i)
+                    set[i] = cards[combination[i]];
+                action.accept(packSet(set));
+                return true;
+            }
+            return false;
+        }
+
+        private boolean advanceByCompletion() {
+            while (true) {
+                if (depth < 0 || next[1] >= cards.length) {
+                    if (first >= to) return false;
+                    combination[0] = first++;
+                    next[1] = combination[0] + 1;
+                    depth = 0;
+                    continue;
+                }
+                int second = next[1]++;
+                int third = position.of(completeSet(cards[combination[0]], cards[second]));
+                if (third > second) {
+                    combination[1] = second;
+                    combination[2] = third;
+                    return true;
+                }
+            }
+        }
+
+        private boolean advanceByBacktracking() {
+            int r = config.featureSize;
+            int lanes = config.featureCount;
+            if (depth < 0) {
+                if (first >= to) return false;
+                next[0] = first;
+                depth = 0;
+            }
+
+            while (depth >= 0) {
+                int last = depth == 0 ? Math.min(to - 1, cards.length - r) : cards.length - r + depth;
+                int i = next[depth]++;
+                if (depth == 0) first = next[0];
+                if (i > last) {
+                    --depth;
+                    continue;
+                }
+
+                long word = features.word(cards[i]);
+                boolean viable = true;
+                for (int k = 0; k < lanes && viable; ++k) {
+                    long values = (depth == 0 ? 0 : seen[(depth - 1) * lanes + k])
+                            | 1L << (word >>> k * features.bits & features.mask);
+                    seen[depth * lanes + k] = values;
+                    int distinct = Long.bitCount(values);
+                    viable = distinct == 1 || distinct == depth + 1;
+                }
+                if (!viable) continue;
+
+                combination[depth] = i;
+                if (depth == r - 1) return true;
+                next[++depth] = i + 1;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            int middle = (first + to) >>> 1;
+            if (middle <= first) return null;
+
+            // the prefix (with the combination in progress, if any) is handed to the split
+            SetSpliterator prefix = new SetSpliterator(cards, position, first, middle);
+            System.arraycopy(combination, 0, prefix.combination, 0, combination.length);
+            System.arraycopy(next, 0, prefix.next, 0, next.length);
+            if (seen != null) System.arraycopy(seen, 0, prefix.seen, 0, seen.length);
+            prefix.depth = depth;
+            first = middle;
+            depth = -1;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Math.max(0, to - first);
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL | IMMUTABLE;
+        }
+    }
+
+    @Override
+    public int completeSet(int first, int second) {
+        if (config.featureSize != 3) return -1;
+        if (completions != null) return completions.third(first, second);
+        return features.card(FeatureTable.complete(features.word(first), features.word(second)));
+    }
+
+    /**
+     * A presence map of an array of cards: the position of each card id in the array. Indexed by card id, or, for a
+     * large deck (see Config.largeDeckMinSize), searched in the cards sorted by id, so that its size follows the
+     * number of cards rather than the deck.
+     */
+    private class Positions {
+
+        /**
+         * The (1-based) position per card id, 0 if the card is missing (null for a large deck).
+         */
+        private final int[] byCard;
+
+        /**
+         * The card ids (high half) and their positions (low half), sorted (null unless the deck is large).
+         */
+        private final long[] sorted;
+
+        Positions(int[] cards) {
+            if (config.deckSize < config.largeDeckMinSize) {
+                byCard = new int[config.deckSize];
+                sorted = null;
+                for (int i = 0; i < cards.length; ++i)
+                    byCard[cards[i]] = i + 1;
+                return;
+            }
+
+            byCard = null;
+            sorted = new long[cards.length];
+            for (int i = 0; i < cards.length; ++i)
+                sorted[i] = (long) cards[i] << 32 | i;
+            Arrays.sort(sorted);
+        }
+
+        /**
+         * @param card - a card id.
+         * @return - the position of the card, or -1 if it is missing.
+         */
+        int of(int card) {
+            if (byCard != null) return byCard[card] - 1;
+            // searching just below the first possible entry of the card lands on its entry, if any
+            int i = -Arrays.binarySearch(sorted, ((long) card << 32) - 1) - 1;
+            return i < sorted.length && (int) (sorted[i] >>> 32) == card ? (int) sorted[i] : -1;
+        }
+    }
+
+    /**
+     * Finds sets by testing every featureSize-combination of the given cards in lexicographic order.
+     *
+     * @param deck  - a collection of cards.
+     * @param count - the maximum number of sets to find.
+     * @return - a list of up to count sorted integer arrays, each one contains the card ids of a legal set.
+     */
+    List<int[]> findSetsByCombinations(List<Integer> deck, int count) {
         LinkedList<int[]> sets = new LinkedList<>();
         int n = deck.size();
         int r = config.featureSize;
@@ -0,0 +1,185 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A table whose changes are all applied by a single owner thread, from a bounded mailbox of commands, instead of by
+ * the dealer and player threads contending for the table lock. A thread that changes the table posts the change and
+ * waits for its result, queries of the cards are answered from the latest published snapshot without waiting at all.
+ * The tokens are read from the live token masks, which the claims are checked against.
+ * Selected by the ActorTable configuration flag.
+ * The owner thread is a daemon thread that lives as long as the table.
+ */
+public class ActorTable extends Table {
+
+    /**
+     * The changes waiting to be applied, in arrival order.
+     */
+    private final BlockingQueue<Runnable> mailbox;
+
+    private final Thread owner;
+
+    /**
+     * Constructor for actual usage.
+     *
+     * @param env - the game environment objects.
+     */
+    public ActorTable(Env env) {
+
+        super(env);
+        this.mailbox = new ArrayBlockingQueue<>(env.config.tableMailboxSize);
+        this.owner = new Thread(this::applyChanges, "table owner");
+        this.owner.setDaemon(true);
+        this.owner.start();
+    }
+
+    // the main loop of the owner thread
+    private void applyChanges() {
+        while (true) {
+            try {
+                mailbox.take().run();
+            } catch (InterruptedException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Posts a change to the owner thread and waits for its result. Interrupts do not abandon a posted change, they
+     * are kept for the caller to see after the change was applied. The owner thread applies its own changes inline.
+     */
+    private <T> T apply(Callable<T> change) {
+        FutureTask<T> task = new FutureTask<>(change);
+        if (Thread.currentThread() == owner) {
+            task.run();
+        } else {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    mailbox.put(task);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            while (!task.isDone()) {
+                try {
+                    task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException ignored) {
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) { // the task is done, cannot happen
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void apply(Runnable change) {
+        apply(() -> {
+            change.run();
+            return null;
+        });
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        apply(() -> super.placeCard(card, slot));
+    }
+
+    @Override
+    public void placeCards(int[] cards, int[] targetSlots) {
+        apply(() -> super.placeCards(cards, targetSlots));
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        apply(() -> super.removeCard(slot));
+    }
+
+    @Override
+    public int[] removeCards(int[] fromSlots) {
+        return apply(() -> super.removeCards(fromSlots));
+    }
+
+    @Override
+    public List<Integer> removeAllCards() {
+        return apply(super::removeAllCards);
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        apply(() -> super.placeToken(player, slot));
+    }
+
+    @Override
+    public boolean removeToken(int player, int slot) {
+        return apply(() -> super.removeToken(player, slot));
+    }
+
+    @Override
+    public boolean checkAndRemoveSet(int player, Dealer dealer) {
+        return apply(() -> super.checkAndRemoveSet(player, dealer));
+    }
+
+    @Override
+    public int[] checkAndRemoveSets(int[] players, Dealer dealer) {
+        return apply(() -> super.checkAndRemoveSets(players, dealer));
+    }
+
+    @Override
+    public void placeCardsOnTable(List<Integer> deck) {
+        apply(() -> super.placeCardsOnTable(deck));
+    }
+
+    @Override
+    public int countCards() {
+        return snapshot().cards().length;
+    }
+
+    @Override
+    public int cardAt(int slot) {
+        return snapshot().cardAt(slot);
+    }
+
+    @Override
+    public boolean hasCardAt(int slot) {
+        return snapshot().cardAt(slot) != SlotMap.EMPTY;
+    }
+
+    @Override
+    public int cards(int[] buffer) {
+        TableSnapshot table = snapshot();
+        int count = 0;
+        for (int slot = 0; slot < table.size(); ++slot)
+            if (table.cardAt(slot) != SlotMap.EMPTY)
+                buffer[count++] = table.cardAt(slot);
+        return count;
+    }
+
+    @Override
+    public int emptySlots(int[] buffer) {
+        TableSnapshot table = snapshot();
+        int count = 0;
+        for (int slot = 0; slot < table.size(); ++slot)
+            if (table.cardAt(slot) == SlotMap.EMPTY)
+                buffer[count++] = slot;
+        return count;
+    }
+}
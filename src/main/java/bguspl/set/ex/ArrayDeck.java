@@ -0,0 +1,78 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A deck holding every card id in an int array, drawn from a cursor at the front: the cards left are the ones from
+ * the cursor to the end of the array. A card is returned to the deck into the free cell just before the cursor.
+ * Shuffling is a Fisher–Yates shuffle done one step per draw: each draw of a shuffled deck swaps a card chosen
+ * uniformly among the cards left to the cursor, so only as much of the deck is shuffled as is dealt, and returned
+ * cards are shuffled in as well.
+ */
+class ArrayDeck implements Deck {
+
+    private final int[] cards;
+
+    /**
+     * The index of the next card to draw.
+     */
+    private int next;
+
+    /**
+     * True iff the deck was shuffled, so the draws are uniform among the cards left.
+     */
+    private boolean shuffled;
+
+    private final SplittableRandom random = new SplittableRandom();
+
+    /**
+     * @param deckSize - the number of cards in the full deck.
+     */
+    ArrayDeck(int deckSize) {
+        cards = new int[deckSize];
+        for (int card = 0; card < deckSize; ++card)
+            cards[card] = card;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return next == cards.length;
+    }
+
+    @Override
+    public int size() {
+        return cards.length - next;
+    }
+
+    @Override
+    public int draw() {
+        if (shuffled) {
+            int i = next + random.nextInt(cards.length - next);
+            int card = cards[i];
+            cards[i] = cards[next];
+            cards[next] = card;
+        }
+        return cards[next++];
+    }
+
+    /**
+     * @param card - the card id.
+     * @pre - the card was drawn from the deck and was not returned since.
+     */
+    @Override
+    public void add(int card) {
+        cards[--next] = card;
+    }
+
+    @Override
+    public void shuffle() {
+        // the next draws complete the shuffle
+        shuffled = true;
+    }
+
+    @Override
+    public int[] toArray() {
+        return Arrays.copyOfRange(cards, next, cards.length);
+    }
+}
@@ -0,0 +1,57 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+
+/**
+ * A SlotMap kept in primitive arrays, indexed by slot and by card id.
+ */
+class ArraySlotMap implements SlotMap {
+
+    /**
+     * Mapping between a slot and the card placed in it (EMPTY if none).
+     */
+    private final int[] slotToCard;
+
+    /**
+     * Mapping between a card and the slot it is in (EMPTY if none).
+     */
+    private final int[] cardToSlot;
+
+    ArraySlotMap(int tableSize, int deckSize) {
+        slotToCard = new int[tableSize];
+        cardToSlot = new int[deckSize];
+        Arrays.fill(slotToCard, EMPTY);
+        Arrays.fill(cardToSlot, EMPTY);
+    }
+
+    @Override
+    public int size() {
+        return slotToCard.length;
+    }
+
+    @Override
+    public int cardAt(int slot) {
+        return slotToCard[slot];
+    }
+
+    @Override
+    public int slotOf(int card) {
+        return cardToSlot[card];
+    }
+
+    @Override
+    public void place(int card, int slot) {
+        cardToSlot[card] = slot;
+        slotToCard[slot] = card;
+    }
+
+    @Override
+    public int clear(int slot) {
+        int card = slotToCard[slot];
+        if (card != EMPTY) {
+            slotToCard[slot] = EMPTY;
+            cardToSlot[card] = EMPTY;
+        }
+        return card;
+    }
+}
@@ -0,0 +1,50 @@
+package bguspl.set.ex;
+
+/**
+ * A SlotMap over caller supplied boxed arrays (null meaning none), for the Table testing constructor.
+ * The arrays stay live: changes made to them by the caller are seen by the table and vice versa.
+ */
+class BoxedSlotMap implements SlotMap {
+
+    private final Integer[] slotToCard;
+
+    private final Integer[] cardToSlot;
+
+    BoxedSlotMap(Integer[] slotToCard, Integer[] cardToSlot) {
+        this.slotToCard = slotToCard;
+        this.cardToSlot = cardToSlot;
+    }
+
+    @Override
+    public int size() {
+        return slotToCard.length;
+    }
+
+    @Override
+    public int cardAt(int slot) {
+        Integer card = slotToCard[slot];
+        return card == null ? EMPTY : card;
+    }
+
+    @Override
+    public int slotOf(int card) {
+        Integer slot = cardToSlot[card];
+        return slot == null ? EMPTY : slot;
+    }
+
+    @Override
+    public void place(int card, int slot) {
+        cardToSlot[card] = slot;
+        slotToCard[slot] = card;
+    }
+
+    @Override
+    public int clear(int slot) {
+        Integer card = slotToCard[slot];
+        if (card == null)
+            return EMPTY;
+        slotToCard[slot] = null;
+        cardToSlot[card] = null;
+        return card;
+    }
+}
@@ -2,14 +2,15 @@ package bguspl.set.ex;
 
 import bguspl.set.Env;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * This class manages the dealer's threads and data
@@ -29,9 +30,14 @@ public class Dealer implements Runnable {
     private Thread dealerThread;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck.
      */
-    private final List<Integer> deck;
+    private final Deck deck;
+
+    /**
+     * The number of sets among the cards in the deck or on the table.
+     */
+    private final GameSetCounter gameSets;
 
     /**
      * True iff game should be terminated.
@@ -61,6 +67,31 @@ public class Dealer implements Runnable {
 
     private long timeNotToSleep;
 
+    /**
+     * The time between the countdown display updates during the warning period.
+     */
+    private static final long warningTick = 10;
+
+    /**
+     * The System.nanoTime() at which each player's pending claim was queued.
+     */
+    private final long[] claimTimes;
+
+    /**
+     * Scheduler statistics, updated by the dealer thread only.
+     */
+    private long parks;
+    private long deadlineWakeups;
+    private long claimWakeups;
+    private long claimPickups;
+    private long claimPickupNanos;
+    private long maxClaimPickupNanos;
+
+    /**
+     * A buffer for the empty slots of the table, reused by placeCardsOnTable.
+     */
+    private final int[] emptySlots;
+
     // private final long maxCardsToPlaceAtOnce;
 
     // private final long maxCardsToRemoveAtOnce;
@@ -71,7 +102,9 @@ public class Dealer implements Runnable {
         this.env = env;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        deck = env.config.deckSize >= env.config.largeDeckMinSize ? new LazyDeck(env.config.deckSize)
+                : new ArrayDeck(env.config.deckSize);
+        gameSets = new GameSetCounter(env);
         dealerLock = new Object();
         deckLock = new Object();
         this.setSize = env.config.featureSize;
@@ -82,6 +115,8 @@ public class Dealer implements Runnable {
         // this.maxPlayerToCheckAtOnce = this.calculateMaxPlayersToCheckAtOnce();
         this.playersToCheck = new ArrayBlockingQueue<>(players.length);
         this.timeNotToSleep = 0;
+        this.emptySlots = new int[env.config.tableSize];
+        this.claimTimes = new long[players.length];
     }
 
     /**
@@ -90,7 +125,7 @@ public class Dealer implements Runnable {
     @Override
     public void run() {
         this.dealerThread = Thread.currentThread();
-        Collections.shuffle(deck);
+        deck.shuffle();
         env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
         // The dealer must activate player's threads
         for (Player player : players) {
@@ -104,6 +139,10 @@ public class Dealer implements Runnable {
             updateTimerDisplay(false);
         }
         // announceWinners();
+        table.close();
+        env.logger.info("thread " + Thread.currentThread().getName() + " " + table.setCacheStatistics());
+        env.logger.info("thread " + Thread.currentThread().getName() + " " + table.lockStatistics());
+        env.logger.info("thread " + Thread.currentThread().getName() + " " + schedulerStatistics());
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
 
@@ -144,7 +183,8 @@ public class Dealer implements Runnable {
             players[i].terminate();
         }
         this.terminate = true;
-        dealerThread.interrupt();
+        if (dealerThread != null)
+            LockSupport.unpark(dealerThread);
         //}
     }
 
@@ -154,38 +194,62 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
+        // the game goes on as long as a set is left among the cards of the deck and the table together
+        if (gameSets.isSupported())
+            return terminate || gameSets.count() == 0;
         synchronized (dealerLock) {
             return terminate || (!areAvailableSets() && deck.isEmpty()) ||
-                    (env.util.findSets(deck, 1).size() == 0 && !areAvailableSets());
+                    (!deckContainsSet() && !areAvailableSets());
         }
     }
 
     /**
-     * Checks cards should be removed from the table and removes them.
+     * Checks cards should be removed from the table and removes them. All the pending claims are checked in one
+     * batch: the winners are awarded in arrival order, the illegal claims are penalized, and the void claims (an
+     * earlier claim took one of their cards) are released.
      */
     private void removeCardsFromTable() {
 
         env.logger.info("thread " + Thread.currentThread().getName() + " removing cards from table");
 
-        //long playersLeft = maxPlayerToCheckAtOnce;
-        // env.logger.info("thread " + Thread.currentThread().getName() + " playersLeft
-        // " + playersLeft);
-        while (/*playersLeft > 0 &&*/ !playersToCheck.isEmpty() && !terminate) {
-            Player player = playersToCheck.remove();
-            env.logger.info("thread " + Thread.currentThread().getName() + " checking player " + player.id);
-            if (table.checkAndRemoveSet(player.id, this)) {
+        List<Player> claims = new ArrayList<>(players.length);
+        playersToCheck.drainTo(claims);
+        claims.removeIf(player -> player.id < 0 || player.id >= players.length); // the terminate marker
+        if (claims.isEmpty() || terminate) {
+            placeCardsOnTable();
+            return;
+        }
+
+        int[] claimants = new int[claims.size()];
+        for (int i = 0; i < claimants.length; ++i) {
+            claimants[i] = claims.get(i).id;
+            long pickupNanos = System.nanoTime() - claimTimes[claimants[i]];
+            claimPickups++;
+            claimPickupNanos += pickupNanos;
+            maxClaimPickupNanos = Math.max(maxClaimPickupNanos, pickupNanos);
+        }
+        env.logger.info("thread " + Thread.currentThread().getName() + " checking players " + Arrays.toString(claimants));
+
+        int[] results = table.checkAndRemoveSets(claimants, this);
+        boolean won = false;
+        for (int i = 0; i < results.length; ++i) {
+            Player player = claims.get(i);
+            if (results[i] == Table.CLAIM_WON) {
                 env.logger.info("thread " + Thread.currentThread().getName() + " pointing player " + player.id);
                 player.point();
-                this.resetTimer();
-                this.updateTimerDisplay(false);
-                // playersLeft = playersLeft - 1;
-                // cardsLeftToPlace = cardsLeftToPlace - setSize;
-                // timeNotToSleep = timeNotToSleep + setSize * env.config.tableDelayMillis;
-            } else {
+                won = true;
+            } else if (results[i] == Table.CLAIM_ILLEGAL) {
                 env.logger.info("thread " + Thread.currentThread().getName() + " penalizing player " + player.id);
                 player.penalty();
+            } else {
+                env.logger.info("thread " + Thread.currentThread().getName() + " releasing player " + player.id);
+                player.release();
             }
         }
+        if (won) {
+            this.resetTimer();
+            this.updateTimerDisplay(false);
+        }
 
         placeCardsOnTable();
     }
@@ -202,22 +266,18 @@ public class Dealer implements Runnable {
     private void placeCardsOnTable() {
         // synchronized(dealerLock){
         // hasChanged = true;
-        List<Integer> emptySlots = table.getEmptySlots();
-        if (emptySlots == null || emptySlots.isEmpty())
+        int emptySlotsCount = table.emptySlots(emptySlots);
+        if (emptySlotsCount == 0)
             return;
         synchronized (deckLock) {
-            for (int i : emptySlots) {
-                // if (cardsLeftToPlace <=  0) {
-                //     // number of cards to place exceeds clockTick
-                //     cardsLeftToPlace = maxCardsToPlaceAtOnce;
-                //     return;
-                // }
-                if (!deck.isEmpty()) {
-                    table.placeCard(deck.remove(0), i);
-                    //cardsLeftToPlace = cardsLeftToPlace - 1;
-                    this.updateTimerDisplay(false);
-                }
-            }
+            // the cards for all the empty slots are placed in one batch
+            int count = Math.min(emptySlotsCount, deck.size());
+            int[] cards = new int[count];
+            for (int i = 0; i < count; i++)
+                cards[i] = deck.draw();
+            table.placeCards(cards, Arrays.copyOf(emptySlots, count));
+            if (count > 0)
+                this.updateTimerDisplay(false);
         }
 
         //cardsLeftToPlace = maxCardsToPlaceAtOnce;
@@ -226,29 +286,33 @@ public class Dealer implements Runnable {
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some
-     * purpose.
+     * Parks the dealer until the next deadline of the countdown display or until a claim arrives, whichever comes
+     * first. The deadline is the next whole second of the countdown, or the next warning tick during the warning
+     * period.
      */
     private void sleepUntilWokenOrTimeout() {
-        //long sleepTime = clockTick; // one seconed
-        int minSleepTime = 10;
-        long timeLeft = reshuffleTime - System.currentTimeMillis();
-        long sleepTime = timeLeft%clockTick;
-        sleepTime = Math.min(sleepTime, clockTick); // sleep time should not be bigger than clockTick
+        long now = System.currentTimeMillis();
+        long timeLeft = reshuffleTime - now;
+        long sleepTime;
+        if (timeLeft > env.config.turnTimeoutWarningMillis) {
+            sleepTime = timeLeft % clockTick == 0 ? clockTick : timeLeft % clockTick;
+            // the display switches to the warning countdown as soon as the warning period starts
+            sleepTime = Math.min(sleepTime, timeLeft - env.config.turnTimeoutWarningMillis);
+        } else
+            sleepTime = warningTick;
         env.logger.info("thread " + Thread.currentThread().getName() + " timeLeft is: " + timeLeft);
         env.logger.info("thread " + Thread.currentThread().getName() + " sleepTime is: " + sleepTime);
-        if (timeLeft > env.config.turnTimeoutWarningMillis) {
-            //sleepTime = sleepTime - timeNotToSleep;
-        } else {
-            sleepTime = 10;
-            env.logger.info("thread " + Thread.currentThread().getName() + " timeLeft is small");
-            env.logger.info("thread " + Thread.currentThread().getName() + " timeLeft: " + timeLeft);
-        }
-        try {
-            Thread.sleep(Math.max(sleepTime, minSleepTime)); // should not sleep less than 10 ms
-        } catch (InterruptedException e) {
+        long deadline = now + Math.max(sleepTime, 1);
+        while (!terminate && playersToCheck.isEmpty()) {
+            long parkTime = deadline - System.currentTimeMillis();
+            if (parkTime <= 0) {
+                deadlineWakeups++;
+                return;
+            }
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(parkTime));
+            parks++;
         }
-        timeNotToSleep = 0;
+        claimWakeups++;
     }
 
     /**
@@ -275,10 +339,10 @@ public class Dealer implements Runnable {
         // remove cards from table
         synchronized (deckLock) {
             for (int card : cardsToRemove) {
-                deck.add((Integer) card);
+                deck.add(card);
             }
             // shuffle the cards again after removal
-            Collections.shuffle(deck);
+            deck.shuffle();
         }
     }
 
@@ -310,15 +374,37 @@ public class Dealer implements Runnable {
         env.ui.announceWinner(winners);
     }
 
+    // returns true if there is a set among the cards left in the deck
+    // a deck larger than the largest cap set always holds one, so a large deck is not searched
+    private boolean deckContainsSet() {
+        synchronized (deckLock) {
+            if (env.config.maxCapSetSize >= 0 && deck.size() > env.config.maxCapSetSize)
+                return true;
+            return env.util.containsSet(deck.toArray());
+        }
+    }
+
     private boolean areAvailableSets() {
         // returns true if there is a set avialable on the table
         return table.areAvailableSets();
     }
 
-    // 'wakes up' the dealer. notifies its lock
+    // 'wakes up' the dealer. unparks its thread
     public void wakeUp() {
         env.logger.info("thread " + Thread.currentThread().getName() + " waking up dealer");
-        dealerThread.interrupt();
+        LockSupport.unpark(dealerThread);
+    }
+
+    /**
+     * Returns the scheduler statistics: how many times the dealer woke up and how long claims waited to be picked up.
+     *
+     * @return - the scheduler statistics.
+     */
+    public String schedulerStatistics() {
+        return "dealer wakeups: " + parks + " (deadlines: " + deadlineWakeups + " claims: " + claimWakeups
+                + ") claims picked up: " + claimPickups + " mean pickup latency: "
+                + (claimPickups == 0 ? 0 : claimPickupNanos / claimPickups / 1000) + " us max: "
+                + maxClaimPickupNanos / 1000 + " us";
     }
 
     public void resetTimer() {
@@ -329,6 +415,11 @@ public class Dealer implements Runnable {
         return env.util.testSet(cards);
     }
 
+    // called by the table with the cards of a legal set it removed, they leave the game
+    public void setRemoved(int[] cards) {
+        gameSets.left(cards);
+    }
+
     private long calculateMaxPlayersToCheckAtOnce() {
         long timeToRemoveSet = this.setSize * env.config.tableDelayMillis;
         long timeToReplaceSet = this.setSize * env.config.tableDelayMillis;
@@ -343,6 +434,8 @@ public class Dealer implements Runnable {
         env.logger
                 .info("thread " + Thread.currentThread().getName() + " adding player " + player.id + " to check queue");
         try {
+            if (player.id >= 0 && player.id < claimTimes.length)
+                claimTimes[player.id] = System.nanoTime();
             playersToCheck.put(player);
             wakeUp();
         } catch (InterruptedException e) {
@@ -0,0 +1,42 @@
+package bguspl.set.ex;
+
+/**
+ * The cards left in the dealer's deck.
+ */
+interface Deck {
+
+    /**
+     * @return - true iff no cards are left in the deck.
+     */
+    boolean isEmpty();
+
+    /**
+     * @return - the number of cards left in the deck.
+     */
+    int size();
+
+    /**
+     * Removes the next card from the deck.
+     *
+     * @return - the card id.
+     * @pre - !isEmpty()
+     */
+    int draw();
+
+    /**
+     * Returns a card to the deck.
+     *
+     * @param card - the card id.
+     */
+    void add(int card);
+
+    /**
+     * Shuffles the cards left in the deck.
+     */
+    void shuffle();
+
+    /**
+     * @return - the cards left in the deck, in a new array.
+     */
+    int[] toArray();
+}
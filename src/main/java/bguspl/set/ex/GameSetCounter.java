@@ -0,0 +1,131 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.SetIndex;
+
+/**
+ * A live count of the sets among the cards still in the game, in the deck or on the table. The game starts with the
+ * full deck, and cards only leave the game when a set is claimed (cards moved between the deck and the table stay in
+ * the game), so the count is updated on every card that leaves by uncounting only the sets of that card whose other
+ * cards are all still in the game: for featureSize = 3 the card completing it with each card in the game, otherwise
+ * the sets of the card in the set index. Not supported when neither is available (see isSupported). The set index is
+ * built in the background, so until it is ready the sets are not counted, and once it is ready the sets of the cards
+ * still in the game are counted from scratch.
+ * The game can go on iff the count is not zero.
+ */
+class GameSetCounter {
+
+    private final Env env;
+
+    /**
+     * The index of all the sets of the deck, if used (null for featureSize = 3, and until it is built).
+     */
+    private SetIndex index;
+
+    private volatile boolean supported;
+
+    /**
+     * A bit for every card still in the game.
+     */
+    private final long[] inGame;
+
+    private volatile long count;
+
+    GameSetCounter(Env env) {
+        this.env = env;
+        boolean completes = env.config.featureSize == 3 && env.config.deckSize > 1 && env.util.completeSet(0, 1) >= 0;
+        this.index = completes ? null : env.util.readySetIndex(); // starts building it if needed
+        long sets = SetIndex.countSets(env.config);
+        this.supported = (completes || index != null) && sets != Long.MAX_VALUE;
+        this.count = sets;
+        this.inGame = new long[(env.config.deckSize + Long.SIZE - 1) / Long.SIZE];
+        for (int card = 0; card < env.config.deckSize; ++card)
+            inGame[card >>> 6] |= 1L << card;
+    }
+
+    /**
+     * @return - true iff the sets are counted incrementally (for featureSize != 3, once the set index is ready).
+     */
+    boolean isSupported() {
+        if (supported)
+            return true;
+        if (env.util.readySetIndex() == null)
+            return false;
+        return counting();
+    }
+
+    /**
+     * @return - the number of sets among the cards still in the game.
+     */
+    long count() {
+        return count;
+    }
+
+    /**
+     * Uncounts the sets broken by cards that left the game.
+     *
+     * @param cards - the cards that left the game.
+     */
+    synchronized void left(int[] cards) {
+        boolean counted = counting();
+        for (int card : cards) {
+            if (!isInGame(card))
+                continue;
+            inGame[card >>> 6] &= ~(1L << card);
+            if (counted)
+                count = count - setsOf(card);
+        }
+    }
+
+    // returns true iff the sets are counted, counting the sets of the cards in the game first if the index just got ready
+    private synchronized boolean counting() {
+        if (supported)
+            return true;
+        index = env.util.readySetIndex();
+        if (index == null)
+            return false;
+
+        long sets = 0;
+        for (int set = 0; set < index.setCount(); ++set) {
+            boolean stillIn = true;
+            for (int j = 0; j < env.config.featureSize && stillIn; ++j)
+                stillIn = isInGame(index.card(set, j));
+            if (stillIn)
+                ++sets;
+        }
+        count = sets;
+        supported = true;
+        return true;
+    }
+
+    private boolean isInGame(int card) {
+        return (inGame[card >>> 6] & 1L << card) != 0;
+    }
+
+    // the number of sets of the card whose other cards are all still in the game
+    private long setsOf(int card) {
+        long sets = 0;
+        if (index == null) {
+            for (int word = 0; word < inGame.length; ++word)
+                for (long bits = inGame[word]; bits != 0; bits &= bits - 1) {
+                    int other = word << 6 | Long.numberOfTrailingZeros(bits);
+                    int third = env.util.completeSet(card, other);
+                    if (other < third && isInGame(third)) // each pair once
+                        ++sets;
+                }
+            return sets;
+        }
+
+        for (int i = 0; i < index.setsOfCard(card); ++i) {
+            int set = index.setOfCard(card, i);
+            boolean stillIn = true;
+            for (int j = 0; j < env.config.featureSize && stillIn; ++j) {
+                int other = index.card(set, j);
+                stillIn = other == card || isInGame(other);
+            }
+            if (stillIn)
+                ++sets;
+        }
+        return sets;
+    }
+}
@@ -0,0 +1,114 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A deck for very large decks that never holds the card ids it has not dealt yet: it deals them in the order of a
+ * pseudo-random permutation of the deck (a Feistel network over the card ids, cycle walking into the deck range),
+ * computed one card at a time. Only the cards returned to the deck are held, so the memory used grows with the table,
+ * not with the deck.
+ * The cards are drawn uniformly among the cards left, so the deck never needs shuffling.
+ */
+class LazyDeck implements Deck {
+
+    private static final int ROUNDS = 4;
+
+    private final int deckSize;
+
+    /**
+     * The number of bits of each half of a permuted index.
+     */
+    private final int halfBits;
+
+    private final long[] keys = new long[ROUNDS];
+
+    /**
+     * The number of cards dealt from the permutation.
+     */
+    private int next;
+
+    /**
+     * The cards returned to the deck.
+     */
+    private int[] returned = new int[16];
+    private int returnedCount;
+
+    private final SplittableRandom random = new SplittableRandom();
+
+    /**
+     * @param deckSize - the number of cards in the full deck.
+     */
+    LazyDeck(int deckSize) {
+        this.deckSize = deckSize;
+        int bits = Math.max(2, Integer.SIZE - Integer.numberOfLeadingZeros(deckSize - 1));
+        this.halfBits = (bits + 1) / 2;
+        for (int round = 0; round < ROUNDS; ++round)
+            keys[round] = random.nextLong();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public int size() {
+        return deckSize - next + returnedCount;
+    }
+
+    @Override
+    public int draw() {
+        int i = random.nextInt(size());
+        if (i >= returnedCount)
+            return permute(next++);
+
+        int card = returned[i];
+        returned[i] = returned[--returnedCount];
+        return card;
+    }
+
+    @Override
+    public void add(int card) {
+        if (returnedCount == returned.length)
+            returned = Arrays.copyOf(returned, returned.length * 2);
+        returned[returnedCount++] = card;
+    }
+
+    @Override
+    public void shuffle() {
+        // the draws are uniform among the cards left
+    }
+
+    @Override
+    public int[] toArray() {
+        int[] cards = Arrays.copyOf(returned, size());
+        for (int i = next, j = returnedCount; i < deckSize; ++i, ++j)
+            cards[j] = permute(i);
+        return cards;
+    }
+
+    /**
+     * @param index - a position in the dealing order (0 to deckSize - 1).
+     * @return - the card id at the position.
+     */
+    private int permute(int index) {
+        int value = index;
+        do {
+            value = feistel(value);
+        } while (value >= deckSize); // cycle walking: the network permutes a range of up to 4 * deckSize values
+        return value;
+    }
+
+    private int feistel(int value) {
+        int mask = (1 << halfBits) - 1;
+        int left = value >>> halfBits, right = value & mask;
+        for (long key : keys) {
+            long mixed = (right + key) * 0x9E3779B97F4A7C15L;
+            int next = (left ^ (int) (mixed >>> 40)) & mask;
+            left = right;
+            right = next;
+        }
+        return left << halfBits | right;
+    }
+}
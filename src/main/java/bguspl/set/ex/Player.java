@@ -308,6 +308,16 @@ public class Player implements Runnable {
         }
     }
 
+    // resumes the player without a point or a penalty, when its claim was void
+    public void release() {
+        synchronized (this) {
+            this.waitForDealer = false;
+            env.logger.info(
+                    "thread " + Thread.currentThread().getName() + " is releasing and notifying player: " + this.id);
+            notifyAll();
+        }
+    }
+
     public void penalty() {
         synchronized (this) {
             this.needPenalty = true;
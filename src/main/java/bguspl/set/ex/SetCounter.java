@@ -0,0 +1,134 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.SetIndex;
+
+/**
+ * A live count of the sets among the cards on the table, updated on every card placed or removed by examining only
+ * the sets of that card: for featureSize = 3 the card completing it with each card on the table, otherwise the sets
+ * of the card in the set index. Not supported when neither is available (see isSupported). The set index is built in
+ * the background, so until it is ready the sets are not counted, and the first change after it is ready counts the
+ * cards on the table from scratch.
+ * The caller serializes the updates (the table updates it under its write lock).
+ */
+class SetCounter {
+
+    private final Env env;
+
+    /**
+     * The index of all the sets of the deck, if used (null for featureSize = 3, and until it is built).
+     */
+    private SetIndex index;
+
+    private volatile boolean supported;
+
+    private volatile int count;
+
+    SetCounter(Env env) {
+        this.env = env;
+        boolean completes = env.config.featureSize == 3 && env.config.deckSize > 1 && env.util.completeSet(0, 1) >= 0;
+        this.index = completes ? null : env.util.readySetIndex(); // starts building it if needed
+        this.supported = completes || index != null;
+    }
+
+    /**
+     * @return - true iff the sets are counted incrementally (for featureSize != 3, once the set index is ready).
+     */
+    boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * @return - the number of sets among the cards on the table.
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Counts the sets completed by a card that was just placed on the table.
+     *
+     * @param card  - the card placed.
+     * @param slots - the slots of the table, including the card.
+     */
+    void placed(int card, SlotMap slots) {
+        if (counting(slots))
+            count = count + setsOf(card, slots);
+    }
+
+    /**
+     * Counts the sets among the cards already on a table, as if they were placed one slot at a time.
+     *
+     * @param slots - the slots of the table.
+     */
+    void placedAll(SlotMap slots) {
+        SlotMap replay = new SparseSlotMap(slots.size());
+        for (int slot = 0; slot < slots.size(); ++slot) {
+            int card = slots.cardAt(slot);
+            if (card == SlotMap.EMPTY)
+                continue;
+            replay.place(card, slot);
+            count = count + setsOf(card, replay);
+        }
+    }
+
+    /**
+     * Uncounts the sets broken by a card that was just removed from the table.
+     *
+     * @param card  - the card removed.
+     * @param slots - the slots of the table, without the card.
+     */
+    void removed(int card, SlotMap slots) {
+        if (counting(slots))
+            count = count - setsOf(card, slots);
+    }
+
+    // returns true iff the sets were counted before the change to the slots
+    // otherwise starts counting if the set index is ready, with the change already in the slots
+    private boolean counting(SlotMap slots) {
+        if (supported)
+            return true;
+        index = env.util.readySetIndex();
+        if (index != null) {
+            count = 0;
+            placedAll(slots);
+            supported = true;
+        }
+        return false;
+    }
+
+    /**
+     * Resets the count (after a mismatch found by the self check).
+     */
+    void reset(int count) {
+        this.count = count;
+    }
+
+    // the number of sets of the card whose other cards are all on the table
+    private int setsOf(int card, SlotMap slots) {
+        int sets = 0;
+        if (index == null) {
+            for (int slot = 0; slot < slots.size(); ++slot) {
+                int other = slots.cardAt(slot);
+                if (other == SlotMap.EMPTY || other == card)
+                    continue;
+                int third = env.util.completeSet(card, other);
+                if (other < third && slots.slotOf(third) != SlotMap.EMPTY) // each pair once
+                    ++sets;
+            }
+            return sets;
+        }
+
+        for (int i = 0; i < index.setsOfCard(card); ++i) {
+            int set = index.setOfCard(card, i);
+            boolean onTable = true;
+            for (int j = 0; j < env.config.featureSize && onTable; ++j) {
+                int other = index.card(set, j);
+                onTable = other == card || slots.slotOf(other) != SlotMap.EMPTY;
+            }
+            if (onTable)
+                ++sets;
+        }
+        return sets;
+    }
+}
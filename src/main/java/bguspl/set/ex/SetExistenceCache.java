@@ -0,0 +1,106 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A bounded LRU cache of whether a collection of cards contains a set, keyed by the sorted card ids (so the key is
+ * sized by the collection, not by the deck).
+ */
+class SetExistenceCache {
+
+    /**
+     * The card ids of a collection, in ascending order.
+     */
+    private static final class Key {
+
+        private final int[] cards;
+        private final int hash;
+
+        Key(int[] cards) {
+            this.cards = cards;
+            this.hash = Arrays.hashCode(cards);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && Arrays.equals(cards, ((Key) other).cards);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final int capacity;
+
+    /**
+     * The cached answers, least recently used first.
+     */
+    private final Map<Key, Boolean> entries;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity - the maximum number of cached answers (0 disables the cache).
+     */
+    SetExistenceCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Key, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+                return size() > SetExistenceCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached answer for a collection of cards, or computes and caches it.
+     *
+     * @param cards   - the card ids (sorted in place, and owned by the cache from now on).
+     * @param compute - computes whether the cards contain a set.
+     * @return - true iff the cards contain a set.
+     */
+    boolean containsSet(int[] cards, BooleanSupplier compute) {
+        if (capacity <= 0) {
+            misses.increment();
+            return compute.getAsBoolean();
+        }
+
+        Arrays.sort(cards);
+        Key key = new Key(cards);
+        synchronized (entries) {
+            Boolean cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+
+        misses.increment();
+        boolean answer = compute.getAsBoolean();
+        synchronized (entries) {
+            entries.put(key, answer);
+        }
+        return answer;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "set cache hits: " + hits() + " misses: " + misses();
+    }
+}
@@ -0,0 +1,47 @@
+package bguspl.set.ex;
+
+/**
+ * The mapping between the slots of the table and the cards placed in them.
+ *
+ * @inv cardAt(x) == y iff slotOf(y) == x
+ */
+interface SlotMap {
+
+    /**
+     * The value of an empty slot, and of the slot of a card that is not on the table.
+     */
+    int EMPTY = -1;
+
+    /**
+     * @return - the number of slots of the table.
+     */
+    int size();
+
+    /**
+     * @param slot - the slot.
+     * @return - the card in the slot, or EMPTY if none.
+     */
+    int cardAt(int slot);
+
+    /**
+     * @param card - the card.
+     * @return - the slot the card is in, or EMPTY if it is not on the table.
+     */
+    int slotOf(int card);
+
+    /**
+     * Places a card in a slot.
+     *
+     * @param card - the card.
+     * @param slot - the slot.
+     */
+    void place(int card, int slot);
+
+    /**
+     * Empties a slot.
+     *
+     * @param slot - the slot.
+     * @return - the card that was in the slot, or EMPTY if none.
+     */
+    int clear(int slot);
+}
@@ -0,0 +1,82 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+
+/**
+ * A SlotMap for very large decks, sized by the table instead of the deck: the slot of each card on the table is kept
+ * in an open addressing hash table (linear probing) of about twice the number of slots.
+ */
+class SparseSlotMap implements SlotMap {
+
+    private final int[] slotToCard;
+
+    /**
+     * The cards on the table (EMPTY for a free entry) and the slot of each (at the same index).
+     */
+    private final int[] keys;
+    private final int[] values;
+
+    SparseSlotMap(int tableSize) {
+        slotToCard = new int[tableSize];
+        Arrays.fill(slotToCard, EMPTY);
+        int capacity = Integer.highestOneBit(Math.max(2, tableSize) * 2 - 1) * 2;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    @Override
+    public int size() {
+        return slotToCard.length;
+    }
+
+    @Override
+    public int cardAt(int slot) {
+        return slotToCard[slot];
+    }
+
+    @Override
+    public int slotOf(int card) {
+        for (int i = home(card); keys[i] != EMPTY; i = (i + 1) & (keys.length - 1))
+            if (keys[i] == card)
+                return values[i];
+        return EMPTY;
+    }
+
+    @Override
+    public void place(int card, int slot) {
+        int i = home(card);
+        while (keys[i] != EMPTY && keys[i] != card)
+            i = (i + 1) & (keys.length - 1);
+        keys[i] = card;
+        values[i] = slot;
+        slotToCard[slot] = card;
+    }
+
+    @Override
+    public int clear(int slot) {
+        int card = slotToCard[slot];
+        if (card == EMPTY)
+            return EMPTY;
+        slotToCard[slot] = EMPTY;
+
+        int i = home(card);
+        while (keys[i] != card)
+            i = (i + 1) & (keys.length - 1);
+        // shift back the entries after the removed one that probed past it
+        for (int j = (i + 1) & (keys.length - 1); keys[j] != EMPTY; j = (j + 1) & (keys.length - 1)) {
+            int home = home(keys[j]);
+            if (((j - home) & (keys.length - 1)) >= ((j - i) & (keys.length - 1))) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = EMPTY;
+        return card;
+    }
+
+    private int home(int card) {
+        return (card * 0x9E3779B9 >>> 16) & (keys.length - 1);
+    }
+}
@@ -3,16 +3,19 @@ package bguspl.set.ex;
 import bguspl.set.Env;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntSupplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * This class contains the data that is visible to the player.
  *
- * @inv slotToCard[x] == y iff cardToSlot[y] == x
+ * @inv cardAt(x) == y iff the card y is in the slot x
  */
 
 // this is a comment
@@ -25,25 +28,57 @@ public class Table {
     private final Env env;
 
     /**
-     * Mapping between a slot and the card placed in it (null if none).
+     * Mapping between the slots and the cards placed in them (SlotMap.EMPTY if none).
      */
-    protected final Integer[] slotToCard; // card per slot (if any)
+    private final SlotMap slots;
 
     /**
-     * Mapping between a card and the slot it is in (null if none).
+     * The tokens of the players, a bitmask over the slots per player (lock-free).
      */
-    protected final Integer[] cardToSlot; // slot per card (if any)
+    private final TokenMasks tokens;
 
-    private final HashMap<Integer, List<Integer>> tokens;
+    /**
+     * Guards the cards on the table. Queries read optimistically and fall back to the read lock if a writer interfered,
+     * writers (the dealer) take the write lock. It is not reentrant, so locked methods use the unlocked helpers.
+     */
+    private final StampedLock cardsLock;
 
-    private List<Integer> players;
+    /**
+     * The number of queries, of queries that fell back to the read lock, and the time they waited for it.
+     */
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder readRetries = new LongAdder();
+    private final LongAdder readWaitNanos = new LongAdder();
 
-    private final Object cardsLock;
+    /**
+     * The latest immutable snapshot of the table, replaced after every change of the cards or the tokens.
+     */
+    private final AtomicReference<TableSnapshot> snapshot;
+
+    /**
+     * Shows the changes of the table on the user interface at the pace of the table delay.
+     */
+    private final TableAnimator animator;
 
-    private final Object hashLock;
+    /**
+     * The live count of the sets among the cards on the table, updated under the write lock.
+     */
+    private final SetCounter setCounter;
+
+    /**
+     * The answers of areAvailableSets per collection of cards on the table, used when the sets cannot be counted.
+     */
+    private final SetExistenceCache setCache;
+
+    /**
+     * The results of a claim checked by checkAndRemoveSets.
+     */
+    public static final int CLAIM_WON = 0; // a legal set, removed from the table
+    public static final int CLAIM_ILLEGAL = 1; // not a legal set
+    public static final int CLAIM_VOID = 2; // the tokens are not all on cards, or an earlier claim took a card
 
     /**
-     * Constructor for testing.
+     * Constructor for testing. The cards already in the mappings are counted and snapshot as if they were placed.
      *
      * @param env        - the game environment objects.
      * @param slotToCard - mapping between a slot and the card placed in it (null if
@@ -53,13 +88,7 @@ public class Table {
      */
     public Table(Env env, Integer[] slotToCard, Integer[] cardToSlot) {
 
-        this.env = env;
-        this.slotToCard = slotToCard;
-        this.cardToSlot = cardToSlot;
-        this.tokens = new HashMap<Integer, List<Integer>>();
-        this.players = new LinkedList<>();
-        this.cardsLock = new Object();
-        this.hashLock = new Object();
+        this(env, new BoxedSlotMap(slotToCard, cardToSlot));
     }
 
     /**
@@ -69,7 +98,25 @@ public class Table {
      */
     public Table(Env env) {
 
-        this(env, new Integer[env.config.tableSize], new Integer[env.config.deckSize]);
+        this(env, env.config.deckSize >= env.config.largeDeckMinSize ? new SparseSlotMap(env.config.tableSize)
+                : new ArraySlotMap(env.config.tableSize, env.config.deckSize));
+    }
+
+    private Table(Env env, SlotMap slots) {
+
+        this.env = env;
+        this.slots = slots;
+        this.tokens = new TokenMasks(env.config.players, slots.size());
+        this.cardsLock = new StampedLock();
+        this.setCounter = new SetCounter(env);
+        if (setCounter.isSupported())
+            setCounter.placedAll(slots); // the cards given to the testing constructor
+        // only asked while the sets are not counted, so not needed when they are counted from the start
+        this.setCache = new SetExistenceCache(setCounter.isSupported() ? 0 : env.config.setCacheSize);
+        this.animator = new TableAnimator(env.ui, env.config.tableDelayMillis);
+        int[] slotToCard = new int[slots.size()];
+        Arrays.setAll(slotToCard, slots::cardAt);
+        this.snapshot = new AtomicReference<>(TableSnapshot.of(slotToCard, env.config.players));
     }
 
     /**
@@ -77,16 +124,66 @@ public class Table {
      * table.
      */
     public void hints() {
-        synchronized (cardsLock) {
-            List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-            env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
-                StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
-                List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted()
-                        .collect(Collectors.toList());
-                int[][] features = env.util.cardsToFeatures(set);
-                System.out.println(
-                        sb.append("slots: ").append(slots).append(" features: ").append(Arrays.deepToString(features)));
-            });
+        TableSnapshot table = snapshot();
+        Stream<int[]> sets = env.util.canStreamSets()
+                ? env.util.streamSets(table.cards()).mapToObj(env.util::unpackSet)
+                : env.util.findSets(Arrays.stream(table.cards()).boxed().collect(Collectors.toList()), Integer.MAX_VALUE)
+                        .stream();
+        sets.forEach(set -> {
+            StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
+            List<Integer> setSlots = Arrays.stream(set).mapToObj(table::slotOf).sorted()
+                    .collect(Collectors.toList());
+            int[][] features = env.util.cardsToFeatures(set);
+            System.out.println(
+                    sb.append("slots: ").append(setSlots).append(" features: ").append(Arrays.deepToString(features)));
+        });
+    }
+
+    /**
+     * Returns the latest snapshot of the table, a consistent view of the cards and tokens that needs no locking.
+     * Changes made directly to the arrays given to the testing constructor are not seen by the snapshots.
+     *
+     * @return - the latest table snapshot.
+     */
+    public TableSnapshot snapshot() {
+        return snapshot.get();
+    }
+
+    // publishes the change of the cards in the slots (-1 for a card removed), the caller holds the write lock
+    private void publishCards(int[] changedSlots, int[] cards) {
+        snapshot.updateAndGet(table -> table.withCards(changedSlots, cards));
+    }
+
+    // publishes the tokens of a player as they are now
+    private void publishTokens(int player) {
+        snapshot.updateAndGet(table -> table.withTokens(player, tokens.mask(player)));
+    }
+
+    /**
+     * Runs a query of the cards on the table optimistically, without locking, and runs it again under the read lock
+     * if a writer changed the table meanwhile. The query may see an inconsistent table on its first run, so it must
+     * only read the slot map and not fail on what it reads.
+     *
+     * @param query - the query.
+     * @return - the result of the query on a consistent table.
+     */
+    private int read(IntSupplier query) {
+        reads.increment();
+        long stamp = cardsLock.tryOptimisticRead();
+        if (stamp != 0) {
+            int result = query.getAsInt();
+            if (cardsLock.validate(stamp))
+                return result;
+        }
+
+        readRetries.increment();
+        long start = System.nanoTime();
+        stamp = cardsLock.readLock();
+        readWaitNanos.add(System.nanoTime() - start);
+        try {
+            return query.getAsInt();
+        } finally {
+            cardsLock.unlockRead(stamp);
         }
     }
 
@@ -96,13 +193,13 @@ public class Table {
      * @return - the number of cards on the table.
      */
     public int countCards() {
-        synchronized(cardsLock) {
+        return read(() -> {
             int cards = 0;
-            for (Integer card : slotToCard)
-                if (card != null)
+            for (int slot = 0; slot < slots.size(); ++slot)
+                if (slots.cardAt(slot) != SlotMap.EMPTY)
                     ++cards;
             return cards;
-        }
+        });
     }
 
     /**
@@ -114,17 +211,120 @@ public class Table {
      * @post - the card placed is on the table, in the assigned slot.
      */
     public void placeCard(int card, int slot) {
-        synchronized (cardsLock) {
-            try {
-                Thread.sleep(env.config.tableDelayMillis);
-            } catch (InterruptedException ignored) {
+        long stamp = cardsLock.writeLock();
+        try {
+            placeUnlocked(card, slot);
+            checkSetCount();
+            publishCards(new int[] {slot}, new int[] {card});
+            animator.placeCard(card, slot); // shown after the table delay, the model does not wait for it
+        } finally {
+            cardsLock.unlockWrite(stamp);
+        }
+        // TODO implement
+    }
+
+    /**
+     * Places cards on the table in grid slots, in one update of the table and of the user interface.
+     *
+     * @param cards       - the card ids to place.
+     * @param targetSlots - the slots in which the cards should be placed (targetSlots[i] for cards[i]).
+     *
+     * @post - the cards placed are on the table, in the assigned slots.
+     */
+    public void placeCards(int[] cards, int[] targetSlots) {
+        if (cards.length == 0)
+            return;
+
+        long stamp = cardsLock.writeLock();
+        try {
+            for (int i = 0; i < cards.length; i = i + 1)
+                placeUnlocked(cards[i], targetSlots[i]);
+            checkSetCount();
+            publishCards(targetSlots, cards);
+            animator.placeCards(cards, targetSlots);
+        } finally {
+            cardsLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the cards from grid slots on the table, in one update of the table and of the user interface.
+     *
+     * @param fromSlots - the slots from which to remove the cards.
+     * @return - the cards removed (empty slots are skipped).
+     */
+    public int[] removeCards(int[] fromSlots) {
+        long stamp = cardsLock.writeLock();
+        try {
+            return removeCardsUnlocked(fromSlots);
+        } finally {
+            cardsLock.unlockWrite(stamp);
+        }
+    }
+
+    // removes the cards in the slots and the tokens on them, the caller holds the write lock
+    // the tokens of all players are cleared in one pass
+    private int[] removeCardsUnlocked(int[] fromSlots) {
+        int[] removedCards = new int[fromSlots.length];
+        int[] removedSlots = new int[fromSlots.length];
+        long[] mask = new long[(slots.size() + Long.SIZE - 1) / Long.SIZE];
+        int count = 0;
+        for (int slot : fromSlots) {
+            int card = clearUnlocked(slot);
+            if (card != SlotMap.EMPTY) {
+                removedCards[count] = card;
+                removedSlots[count] = slot;
+                mask[slot >>> 6] |= 1L << slot;
+                count = count + 1;
             }
+        }
+        if (count == 0)
+            return new int[0];
+
+        checkSetCount();
+        tokens.clear(mask);
+        int[] emptied = new int[count];
+        Arrays.fill(emptied, SlotMap.EMPTY);
+        publishCards(Arrays.copyOf(removedSlots, count), emptied);
+        animator.removeCards(Arrays.copyOf(removedSlots, count));
+        return Arrays.copyOf(removedCards, count);
+    }
+
+    // places the card in the slot (replacing the card in it, if any) and counts the sets it completes
+    // the tokens on the slot are removed, as in the published snapshot (see TableSnapshot.withCards)
+    // the caller holds the write lock
+    private void placeUnlocked(int card, int slot) {
+        clearUnlocked(slot);
+        if (tokens.clear(slot))
+            animator.removeTokens(slot);
+        slots.place(card, slot);
+        setCounter.placed(card, slots);
+    }
 
-            cardToSlot[card] = slot;
-            slotToCard[slot] = card;
-            env.ui.placeCard(card, slot); // I can only assume this is the way to use the UI
+    // empties the slot and uncounts the sets of its card, the caller holds the write lock
+    // returns the card that was in the slot, or SlotMap.EMPTY if none
+    private int clearUnlocked(int slot) {
+        int card = slots.clear(slot);
+        if (card != SlotMap.EMPTY)
+            setCounter.removed(card, slots);
+        return card;
+    }
+
+    // cross-validates the set counter with a full search of the table when SetCounterSelfCheck is on
+    // the caller holds the write lock
+    private void checkSetCount() {
+        if (!env.config.setCounterSelfCheck || !setCounter.isSupported())
+            return;
+
+        List<Integer> cards = new LinkedList<>();
+        for (int slot = 0; slot < slots.size(); ++slot)
+            if (slots.cardAt(slot) != SlotMap.EMPTY)
+                cards.add(slots.cardAt(slot));
+        int found = env.util.findSets(cards, Integer.MAX_VALUE).size();
+        if (found != setCounter.count()) {
+            env.logger.severe("set counter mismatch: counted " + setCounter.count() + " sets, found " + found);
+            setCounter.reset(found);
         }
-        // TODO implement
     }
 
     /**
@@ -133,27 +333,27 @@ public class Table {
      * @param slot - the slot from which to remove the card.
      */
     public void removeCard(int slot) {
+        long stamp = cardsLock.writeLock();
         try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {
-        }
-        synchronized (cardsLock) {
-            if (slotToCard[slot] != null) {
-                int card = slotToCard[slot];     
-                slotToCard[slot] = null;
-                cardToSlot[card] = null;
-                synchronized (hashLock) {
-                    for (int player : players) {
-                        this.removeToken(player, slot);
-                    }
-                }
-                env.ui.removeCard(slot);
-            }
-            // else slotToCard[slot] == null and there is no card at the slot
+            removeCardUnlocked(slot);
+        } finally {
+            cardsLock.unlockWrite(stamp);
         }
         // DONE implement
     }
 
+    // removes the card in the slot and the tokens on it, the caller holds the write lock
+    private void removeCardUnlocked(int slot) {
+        if (clearUnlocked(slot) == SlotMap.EMPTY)
+            return; // there is no card at the slot
+        checkSetCount();
+
+        if (tokens.clear(slot))
+            animator.removeTokens(slot);
+        publishCards(new int[] {slot}, new int[] {SlotMap.EMPTY});
+        animator.removeCard(slot);
+    }
+
     /**
      * Places a player token on a grid slot.
      * 
@@ -163,13 +363,9 @@ public class Table {
      */
     public void placeToken(int player, int slot) {
         // TODO implement
-        synchronized (hashLock) {
-            if (!tokens.containsKey(player)) {
-                players.add(player);
-                tokens.put(player, new LinkedList<Integer>());
-            }
-            tokens.get(player).add(slot);
-            env.ui.placeToken(player, slot);
+        if (tokens.place(player, slot)) {
+            publishTokens(player);
+            animator.placeToken(player, slot);
         }
     }
 
@@ -182,172 +378,207 @@ public class Table {
      */
     public boolean removeToken(int player, int slot) {
         // DONE implement
-        synchronized (hashLock) {
-            if (!tokens.containsKey(player)) {
-                return false;
-            }
-
-            else {
-                if (tokens.get(player).remove((Integer) slot)) {
-                    env.ui.removeToken(player, slot);
-                    return true;
-                }
-                return false;
-            }
+        if (tokens.remove(player, slot)) {
+            publishTokens(player);
+            animator.removeToken(player, slot);
+            return true;
         }
+        return false;
     }
 
     // returns the slots which are empty 
     public List<Integer> getEmptySlots(){
-        synchronized(cardsLock) {
-            List<Integer> output = new LinkedList<>();
-            for (int i = 0; i < slotToCard.length; i = i+1){
-                if (slotToCard[i]==null)
-                    output.add(i);
-            }
-            return output;
-        }
+        int[] buffer = new int[slots.size()];
+        int count = emptySlots(buffer);
+        List<Integer> output = new LinkedList<>();
+        for (int i = 0; i < count; i = i + 1)
+            output.add(buffer[i]);
+        return output;
+    }
+
+    /**
+     * Fills a buffer with the empty slots, in ascending order, without allocating.
+     *
+     * @param buffer - the buffer to fill (at least as long as the number of slots).
+     * @return - the number of empty slots written to the buffer.
+     */
+    public int emptySlots(int[] buffer) {
+        return read(() -> {
+            int count = 0;
+            for (int slot = 0; slot < slots.size(); ++slot)
+                if (slots.cardAt(slot) == SlotMap.EMPTY)
+                    buffer[count++] = slot;
+            return count;
+        });
     }
 
 
     // returns the number of tokens a player has on the table 
     // return 0 if table does not recognize the player
     public int getNumOfTokensOnTable(int player) {
-        synchronized(hashLock) {
-            if (!tokens.containsKey(player)) 
-                return 0;
-        
-            return tokens.get(player).size();
-        }
+        return tokens.count(player);
     }
 
 
     // returns an array of cards that the player chose by placing a token on
     // returns an empty array (length = 0) if table does not recognize the player.
     public int[] getTokens(int player) {
-        synchronized(cardsLock) {
-            synchronized(hashLock){
-                if (!tokens.containsKey(player))
-                    return new int[0];
-
-                List<Integer> list = new LinkedList<>(tokens.get(player));
-                int[] output = new int[list.size()];
-                int i = 0;
-                for (int token : list) {
-                    output[i] = token;
-                    i = i + 1;
-                }
-            
-                return output;
-            }
-        }
+        return tokens.slots(player);
     }
 
     public boolean hasCardAt(int slot) {
-        synchronized(cardsLock) {
-            return slotToCard[slot] != null;
-        }
+        return cardAt(slot) != SlotMap.EMPTY;
     }
 
     public int cardAt(int slot) {
-        synchronized(cardsLock) {
-            Integer output = slotToCard[slot];
-            if (output == null)
-                return -1;
-
-            return output;
-        }
+        return read(() -> slots.cardAt(slot)); // SlotMap.EMPTY (-1) if none
     }
 
     public boolean checkAndRemoveSet(int player, Dealer dealer) {
         // returns true if player has a set
         // else returns false
-        synchronized(cardsLock){
-            synchronized(hashLock) {
-
-                if (!players.contains((Integer) player)) // if player does not exist
-                    return false;
-
-                if (this.getNumOfTokensOnTable(player) != dealer.setSize)
-                    return false;
-
-                List<Integer> currentTokens = new LinkedList<>(tokens.get(player));
-                int[] cards = new int[currentTokens.size()];
-                
-                // copy currentTokens into cards
-                int i = 0;
-                for (int token : currentTokens) {
-                    if(slotToCard[token] == null)
-                        return false;
-
-                    
-                    cards[i] = slotToCard[token];
-                    i = i + 1;
-                }
+        return checkAndRemoveSets(new int[] {player}, dealer)[0] == CLAIM_WON;
+    }
 
-                if (dealer.testSet(cards)) {
-                    // player chose a legal set
-                    
-                    // remove cards of the set
-                    for (int token : currentTokens) {
-                        this.removeCard(token);
-                    }
-                    return true;
+    /**
+     * Checks the claims of a batch of players together, against the same cards, and removes the cards of the winning
+     * claims from the table in one change. The claims are decided in arrival order: a claim sharing a card with an
+     * earlier winning claim of the batch is void, as is a claim whose tokens are no longer all on cards.
+     *
+     * @param players - the claiming players, in arrival order.
+     * @param dealer  - the dealer, testing the sets and told about the removed sets.
+     * @return - the result of each claim: CLAIM_WON, CLAIM_ILLEGAL or CLAIM_VOID.
+     */
+    public int[] checkAndRemoveSets(int[] players, Dealer dealer) {
+        int[] results = new int[players.length];
+        int[] wonSlots = new int[players.length * dealer.setSize];
+        int[] wonCards = new int[wonSlots.length];
+        int wonCount = 0;
+        long[] taken = new long[(slots.size() + Long.SIZE - 1) / Long.SIZE];
+        long stamp = cardsLock.writeLock();
+        try {
+            for (int i = 0; i < players.length; ++i) {
+                int[] claimedSlots = tokens.slots(players[i]); // empty for an unknown player
+                results[i] = checkClaimUnlocked(claimedSlots, taken, dealer);
+                if (results[i] != CLAIM_WON)
+                    continue;
+                for (int slot : claimedSlots) {
+                    taken[slot >>> 6] |= 1L << slot;
+                    wonSlots[wonCount] = slot;
+                    wonCards[wonCount] = slots.cardAt(slot);
+                    wonCount = wonCount + 1;
                 }
+            }
 
-                // is not a legal set. return false
-                return false;
-
+            // the sets of all the winning claims are removed in one change
+            if (wonCount > 0) {
+                removeCardsUnlocked(Arrays.copyOf(wonSlots, wonCount));
+                dealer.setRemoved(Arrays.copyOf(wonCards, wonCount));
             }
+            return results;
+        } finally {
+            cardsLock.unlockWrite(stamp);
         }
     }
 
+    // decides a claim of a batch, the slots of the earlier winning claims are in taken
+    // the caller holds the write lock
+    private int checkClaimUnlocked(int[] claimedSlots, long[] taken, Dealer dealer) {
+        // a card removed since the claim was made took the player's token with it
+        if (claimedSlots.length != dealer.setSize)
+            return CLAIM_VOID;
+
+        int[] cards = new int[claimedSlots.length];
+        for (int i = 0; i < claimedSlots.length; i = i + 1) {
+            int slot = claimedSlots[i];
+            cards[i] = slots.cardAt(slot);
+            if (cards[i] == SlotMap.EMPTY || (taken[slot >>> 6] & 1L << slot) != 0)
+                return CLAIM_VOID;
+        }
+
+        if (!dealer.testSet(cards))
+            return CLAIM_ILLEGAL; // is not a legal set
+        return CLAIM_WON;
+    }
+
     public List<Integer> getAllCards() {
-        synchronized(cardsLock) {
-            List<Integer> output = new LinkedList<>();
-            for (int i = 0; i < slotToCard.length; i = i + 1){
-                if (slotToCard[i] != null) {
-                    output.add(slotToCard[i].intValue());
-                }
-            }
+        int[] buffer = new int[slots.size()];
+        int count = cards(buffer);
+        List<Integer> output = new LinkedList<>();
+        for (int i = 0; i < count; i = i + 1)
+            output.add(buffer[i]);
+        return output;
+    }
 
-            return output;
-        }
+    /**
+     * Fills a buffer with the cards on the table, in slot order, without allocating.
+     *
+     * @param buffer - the buffer to fill (at least as long as the number of slots).
+     * @return - the number of cards written to the buffer.
+     */
+    public int cards(int[] buffer) {
+        return read(() -> {
+            int count = 0;
+            for (int slot = 0; slot < slots.size(); ++slot) {
+                int card = slots.cardAt(slot);
+                if (card != SlotMap.EMPTY)
+                    buffer[count++] = card;
+            }
+            return count;
+        });
     }
 
     public List<Integer> removeAllCards() {
         env.logger.info("thread " + Thread.currentThread().getName() + " Table remove all cards");
-        synchronized(cardsLock) {
-            synchronized(hashLock) {
-                List<Integer> output = this.getAllCards();
+        int[] allSlots = new int[slots.size()];
+        Arrays.setAll(allSlots, i -> i);
+        List<Integer> output = new LinkedList<>();
+        for (int card : removeCards(allSlots))
+            output.add(card);
+        return output;
+    }
 
-                for (int i = 0; i < slotToCard.length; i = i + 1) {
-                    this.removeCard(i);
-                }
+    public boolean areAvailableSets() {
+        if (setCounter.isSupported())
+            return setCounter.count() > 0;
 
-                return output;
-            }
-        }
+        int[] buffer = new int[slots.size()];
+        int[] cards = Arrays.copyOf(buffer, cards(buffer));
+        return setCache.containsSet(cards, () -> env.util.containsSet(cards));
     }
 
-    public boolean areAvailableSets() {
-        synchronized(cardsLock) {
-            List<Integer> temp = this.getAllCards();
+    // returns the number of sets among the cards on the table, or -1 if they are not counted incrementally
+    public int countSets() {
+        return setCounter.isSupported() ? setCounter.count() : -1;
+    }
 
-            return env.util.findSets(temp, 1).size() >= 1;
-        }
+    // returns the hit/miss statistics of the areAvailableSets cache
+    public String setCacheStatistics() {
+        return setCache.toString();
+    }
+
+    // returns the statistics of the table queries: how many fell back from an optimistic read to the read lock,
+    // and how long they waited for it
+    public String lockStatistics() {
+        return "table reads: " + reads.sum() + " locked retries: " + readRetries.sum() + " read lock wait: "
+                + readWaitNanos.sum() / 1000 + " us";
+    }
+
+    /**
+     * Shows the pending changes of the table without delay and stops showing changes on the user interface at the
+     * table pace. Called when the game ends.
+     */
+    public void close() {
+        animator.close();
     }
 
     public void placeCardsOnTable(List<Integer> deck) {
-        synchronized (cardsLock) {
-            List<Integer> emptySlots = this.getEmptySlots();
-            for (int slot : emptySlots) {
-                if(deck.isEmpty())
-                    return;
-                    
-                this.placeCard(deck.remove(0), slot);
-            }
-        }
+        int[] emptySlots = new int[slots.size()];
+        int count = Math.min(emptySlots(emptySlots), deck.size());
+        int[] cards = new int[count];
+        for (int i = 0; i < count; i = i + 1)
+            cards[i] = deck.remove(0);
+        this.placeCards(cards, Arrays.copyOf(emptySlots, count));
     }
 
 
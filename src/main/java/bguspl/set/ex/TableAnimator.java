@@ -0,0 +1,133 @@
+package bguspl.set.ex;
+
+import bguspl.set.UserInterface;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Shows the changes of the table on the user interface at the pace of the table delay, on its own thread, so that the
+ * table model (and the game logic using it) never waits for the cosmetic delay.
+ * Card changes (of a single card or of a batch of cards) are released at least tableDelayMillis apart. Token changes
+ * are shown as soon as the card changes before them were, so the display stays in the order of the model. With no
+ * delay everything is shown inline.
+ */
+class TableAnimator implements Runnable {
+
+    /**
+     * A change of the user interface, paced iff it is a card change.
+     */
+    private static final class Change {
+
+        final Runnable show;
+        final boolean paced;
+
+        Change(Runnable show, boolean paced) {
+            this.show = show;
+            this.paced = paced;
+        }
+    }
+
+    /**
+     * Marks the end of the changes (see close).
+     */
+    private static final Change END = new Change(() -> {}, false);
+
+    private final UserInterface ui;
+
+    private final long delayMillis;
+
+    private final BlockingQueue<Change> changes = new LinkedBlockingQueue<>();
+
+    private Thread thread;
+
+    /**
+     * True iff the remaining changes should be shown without delay and no new changes are accepted to the queue.
+     */
+    private volatile boolean closed;
+
+    TableAnimator(UserInterface ui, long delayMillis) {
+        this.ui = ui;
+        this.delayMillis = delayMillis;
+    }
+
+    void placeCard(int card, int slot) {
+        submit(() -> ui.placeCard(card, slot), true);
+    }
+
+    void removeCard(int slot) {
+        submit(() -> ui.removeCard(slot), true);
+    }
+
+    void placeCards(int[] cards, int[] slots) {
+        submit(() -> ui.placeCards(cards, slots), true);
+    }
+
+    void removeCards(int[] slots) {
+        submit(() -> ui.removeCards(slots), true);
+    }
+
+    void placeToken(int player, int slot) {
+        submit(() -> ui.placeToken(player, slot), false);
+    }
+
+    void removeToken(int player, int slot) {
+        submit(() -> ui.removeToken(player, slot), false);
+    }
+
+    void removeTokens(int slot) {
+        submit(() -> ui.removeTokens(slot), false);
+    }
+
+    private void submit(Runnable show, boolean paced) {
+        if (delayMillis <= 0) {
+            show.run();
+            return;
+        }
+
+        // close holds the monitor until the queued changes were shown, so a change submitted meanwhile comes after them
+        synchronized (this) {
+            if (closed) {
+                show.run();
+                return;
+            }
+            if (thread == null) {
+                thread = new Thread(this, "table animator");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            changes.add(new Change(show, paced));
+        }
+    }
+
+    /**
+     * Shows the changes still waiting without delay, and stops the animator thread.
+     */
+    synchronized void close() {
+        closed = true;
+        if (thread == null) return;
+
+        changes.add(END);
+        try {
+            thread.join();
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        long nextRelease = 0;
+        try {
+            for (Change change = changes.take(); change != END; change = changes.take()) {
+                if (change.paced && !closed) {
+                    long wait = nextRelease - System.currentTimeMillis();
+                    if (wait > 0) Thread.sleep(wait);
+                    nextRelease = System.currentTimeMillis() + delayMillis;
+                }
+                change.show.run();
+            }
+        } catch (InterruptedException ignored) {
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+
+/**
+ * An immutable view of the table: the card in each slot and the tokens of each player, with a version number that
+ * grows with every change of the table. Readers get the latest snapshot from Table.snapshot() without locking, and
+ * can tell that a decision made on a snapshot is stale by comparing its version with the current one.
+ * A new snapshot shares the parts that did not change with the snapshot before it.
+ */
+public final class TableSnapshot {
+
+    private final long version;
+
+    /**
+     * The card in each slot (-1 if none).
+     */
+    private final int[] slotToCard;
+
+    /**
+     * The tokens of each player, a bitmask over the slots (bit s of tokens[p][s / 64] is set iff p has a token on s).
+     */
+    private final long[][] tokens;
+
+    private TableSnapshot(long version, int[] slotToCard, long[][] tokens) {
+        this.version = version;
+        this.slotToCard = slotToCard;
+        this.tokens = tokens;
+    }
+
+    /**
+     * @param slotToCard - the card in each slot (-1 if none).
+     * @param players    - the number of players.
+     * @return - the first snapshot of a table with these cards and no tokens.
+     */
+    static TableSnapshot of(int[] slotToCard, int players) {
+        long[][] tokens = new long[players][];
+        Arrays.fill(tokens, new long[(slotToCard.length + Long.SIZE - 1) / Long.SIZE]);
+        return new TableSnapshot(0, slotToCard.clone(), tokens);
+    }
+
+    /**
+     * @return - the version of the table this snapshot shows.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * @return - the number of slots of the table.
+     */
+    public int size() {
+        return slotToCard.length;
+    }
+
+    /**
+     * @param slot - the slot.
+     * @return - the card in the slot, or -1 if none.
+     */
+    public int cardAt(int slot) {
+        return slotToCard[slot];
+    }
+
+    /**
+     * @return - the cards on the table, in slot order.
+     */
+    public int[] cards() {
+        return Arrays.stream(slotToCard).filter(card -> card != SlotMap.EMPTY).toArray();
+    }
+
+    /**
+     * @param card - the card.
+     * @return - the slot the card is in, or -1 if it is not on the table.
+     */
+    public int slotOf(int card) {
+        for (int slot = 0; slot < slotToCard.length; ++slot)
+            if (slotToCard[slot] == card)
+                return slot;
+        return SlotMap.EMPTY;
+    }
+
+    /**
+     * @param player - the player id.
+     * @return - the slots the player has tokens on, in ascending order (empty for an unknown player).
+     */
+    public int[] tokens(int player) {
+        if (player < 0 || player >= tokens.length)
+            return new int[0];
+        long[] mask = tokens[player];
+        int count = 0;
+        for (long word : mask)
+            count += Long.bitCount(word);
+        int[] slots = new int[count];
+        int i = 0;
+        for (int word = 0; word < mask.length; ++word)
+            for (long bits = mask[word]; bits != 0; bits &= bits - 1)
+                slots[i++] = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+        return slots;
+    }
+
+    /**
+     * @return - true iff the player has a token on the slot.
+     */
+    public boolean hasToken(int player, int slot) {
+        return player >= 0 && player < tokens.length && (tokens[player][slot >>> 6] & 1L << slot) != 0;
+    }
+
+    /**
+     * @param slots - the slots that changed.
+     * @param cards - the card now in each of the slots (-1 if it was emptied).
+     * @return - the next snapshot, with the cards changed and no tokens on the changed slots (the table removes
+     *         them from the live token masks as well).
+     */
+    TableSnapshot withCards(int[] slots, int[] cards) {
+        int[] nextSlotToCard = slotToCard.clone();
+        long[] changed = new long[(slotToCard.length + Long.SIZE - 1) / Long.SIZE];
+        for (int i = 0; i < slots.length; ++i) {
+            nextSlotToCard[slots[i]] = cards[i];
+            changed[slots[i] >>> 6] |= 1L << slots[i];
+        }
+
+        long[][] nextTokens = tokens;
+        for (int player = 0; player < tokens.length; ++player)
+            for (int word = 0; word < changed.length; ++word)
+                if ((tokens[player][word] & changed[word]) != 0) {
+                    if (nextTokens == tokens)
+                        nextTokens = tokens.clone();
+                    if (nextTokens[player] == tokens[player])
+                        nextTokens[player] = tokens[player].clone();
+                    nextTokens[player][word] &= ~changed[word];
+                }
+        return new TableSnapshot(version + 1, nextSlotToCard, nextTokens);
+    }
+
+    /**
+     * @param player - the player id.
+     * @param mask   - the tokens of the player, a bitmask over the slots (owned by the snapshot from now on).
+     * @return - the next snapshot, with the tokens of the player replaced.
+     */
+    TableSnapshot withTokens(int player, long[] mask) {
+        long[][] nextTokens = tokens.clone();
+        nextTokens[player] = mask;
+        return new TableSnapshot(version + 1, slotToCard, nextTokens);
+    }
+}
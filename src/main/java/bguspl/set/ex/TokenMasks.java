@@ -0,0 +1,151 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The tokens of the players on the table: a lock-free bitmask over the slots per player.
+ * Bit s of the mask of a player is set iff the player has a token on slot s. The masks of consecutive players are
+ * padded to a cache line apart, so player threads updating their own tokens do not contend.
+ */
+class TokenMasks {
+
+    /**
+     * The number of longs in a cache line.
+     */
+    private static final int LINE = 8;
+
+    private final int players;
+
+    /**
+     * The number of longs in the mask of a player.
+     */
+    private final int words;
+
+    /**
+     * The distance between the masks of consecutive players (words, rounded up to whole cache lines).
+     */
+    private final int stride;
+
+    private final AtomicLongArray masks;
+
+    TokenMasks(int players, int slots) {
+        this.players = players;
+        this.words = (slots + Long.SIZE - 1) / Long.SIZE;
+        this.stride = (words + LINE - 1) / LINE * LINE;
+        // an extra line in front keeps the first player off the array header's line
+        this.masks = new AtomicLongArray(LINE + players * stride);
+    }
+
+    /**
+     * @param player - the player id.
+     * @return - true iff the id belongs to a player of the table.
+     */
+    boolean isPlayer(int player) {
+        return player >= 0 && player < players;
+    }
+
+    /**
+     * Places a token of a player on a slot.
+     *
+     * @return - true iff the player had no token on the slot.
+     */
+    boolean place(int player, int slot) {
+        if (!isPlayer(player)) return false;
+        int index = index(player, slot);
+        long bit = 1L << slot;
+        long mask;
+        do {
+            mask = masks.get(index);
+            if ((mask & bit) != 0) return false;
+        } while (!masks.compareAndSet(index, mask, mask | bit));
+        return true;
+    }
+
+    /**
+     * Removes a token of a player from a slot.
+     *
+     * @return - true iff the player had a token on the slot.
+     */
+    boolean remove(int player, int slot) {
+        if (!isPlayer(player)) return false;
+        int index = index(player, slot);
+        long bit = 1L << slot;
+        long mask;
+        do {
+            mask = masks.get(index);
+            if ((mask & bit) == 0) return false;
+        } while (!masks.compareAndSet(index, mask, mask & ~bit));
+        return true;
+    }
+
+    /**
+     * Removes the tokens of all the players from a slot, in one pass over the players.
+     *
+     * @return - true iff any player had a token on the slot.
+     */
+    boolean clear(int slot) {
+        boolean removed = false;
+        for (int player = 0; player < players; ++player)
+            removed |= remove(player, slot);
+        return removed;
+    }
+
+    /**
+     * Removes the tokens of all the players from several slots, in one pass over the players.
+     *
+     * @param slots - a bitmask of the slots (bit s of slots[s / 64] is set for slot s).
+     */
+    void clear(long[] slots) {
+        for (int player = 0; player < players; ++player)
+            for (int word = 0; word < words; ++word) {
+                if (slots[word] == 0) continue;
+                int index = LINE + player * stride + word;
+                long mask;
+                do {
+                    mask = masks.get(index);
+                } while ((mask & slots[word]) != 0 && !masks.compareAndSet(index, mask, mask & ~slots[word]));
+            }
+    }
+
+    /**
+     * @return - the number of tokens the player has on the table (0 for an unknown player).
+     */
+    int count(int player) {
+        if (!isPlayer(player)) return 0;
+        int count = 0;
+        for (int word = 0; word < words; ++word)
+            count += Long.bitCount(masks.get(LINE + player * stride + word));
+        return count;
+    }
+
+    /**
+     * @return - the slots the player has tokens on, in ascending order (empty for an unknown player).
+     */
+    int[] slots(int player) {
+        if (!isPlayer(player)) return new int[0];
+        long[] mask = mask(player);
+        int count = 0;
+        for (long word : mask)
+            count += Long.bitCount(word);
+        int[] slots = new int[count];
+        int i = 0;
+        for (int word = 0; word < words; ++word)
+            for (long bits = mask[word]; bits != 0 && i < count; bits &= bits - 1)
+                slots[i++] = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+        return slots;
+    }
+
+    /**
+     * @return - a copy of the bitmask of the tokens of a (known) player.
+     */
+    long[] mask(int player) {
+        long[] mask = new long[words];
+        for (int word = 0; word < words; ++word)
+            mask[word] = masks.get(LINE + player * stride + word);
+        return mask;
+    }
+
+    private int index(int player, int slot) {
+        return LINE + player * stride + (slot >>> 6);
+    }
+}
@@ -0,0 +1,37 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DealStatisticsTest {
+
+    private final Config config = new Config(Logger.getLogger("test"), new Properties());
+
+    private DealStatistics statistics(long seed) {
+        return new DealStatistics(config, new UtilImpl(config), seed);
+    }
+
+    @Test
+    void sameSeed_SameResults() throws Exception {
+
+        // the threads of the pools split the deals differently
+        ForkJoinPool one = new ForkJoinPool(1), seven = new ForkJoinPool(7);
+        try {
+            long sequential = one.submit(() -> statistics(42).countDealsWithoutSet(20_000)).get();
+            assertEquals(sequential, (long) seven.submit(() -> statistics(42).countDealsWithoutSet(20_000)).get());
+            assertEquals(sequential, (long) seven.submit(() -> statistics(42).countDealsWithoutSet(20_000)).get());
+
+            int[] games = one.submit(() -> statistics(42).simulateGames(200)).get();
+            assertArrayEquals(games, seven.submit(() -> statistics(42).simulateGames(200)).get());
+        } finally {
+            one.shutdown();
+            seven.shutdown();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Compares the set search used by findSets against the lexicographic combination search.
+ * Run with: java -cp target/test-classes:target/classes:$CP org.openjdk.jmh.Main FindSetsBenchmark
+ * where $CP is the test classpath printed by mvn dependency:build-classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindSetsBenchmark {
+
+    @Param({"3", "4", "5"})
+    int featureSize;
+
+    @Param({"12", "20", "30"})
+    int tableSize;
+
+    UtilImpl util;
+    List<Integer> cards;
+
+    @Setup
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", "4");
+        properties.put("LogLevel", "OFF");
+        Config config = new Config(Logger.getLogger("benchmark"), properties);
+        util = new UtilImpl(config);
+
+        List<Integer> deck = new ArrayList<>();
+        for (int card = 0; card < config.deckSize; ++card)
+            deck.add(card);
+        Collections.shuffle(deck, new Random(0));
+        cards = new ArrayList<>(deck.subList(0, tableSize));
+    }
+
+    @Benchmark
+    public List<int[]> findSets() {
+        return util.findSets(cards, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<int[]> combinations() {
+        return util.findSetsByCombinations(cards, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,78 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Compares the bit-parallel three card set test against the per-lane test and the feature matrix test.
+ * Run with: java -cp target/test-classes:target/classes:$CP org.openjdk.jmh.Main TestSetBenchmark
+ * where $CP is the test classpath printed by mvn dependency:build-classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TestSetBenchmark {
+
+    private static final int TRIPLES = 1024;
+
+    @Param({"4", "8"})
+    int featureCount;
+
+    UtilImpl util;
+    int[][] triples;
+    int next;
+
+    @Setup
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("LogLevel", "OFF");
+        Config config = new Config(Logger.getLogger("benchmark"), properties);
+        util = new UtilImpl(config);
+
+        Random random = new Random(0);
+        triples = new int[TRIPLES][3];
+        for (int[] triple : triples) {
+            triple[0] = random.nextInt(config.deckSize);
+            triple[1] = random.nextInt(config.deckSize);
+            triple[2] = random.nextInt(config.deckSize);
+        }
+    }
+
+    private int[] nextTriple() {
+        next = (next + 1) & (TRIPLES - 1);
+        return triples[next];
+    }
+
+    @Benchmark
+    public boolean bitParallel() {
+        return util.testSet(nextTriple());
+    }
+
+    @Benchmark
+    public boolean lanes() {
+        return util.testSetByLanes(nextTriple());
+    }
+
+    @Benchmark
+    public boolean featureMatrix() {
+        return util.testSetByFeatures(nextTriple());
+    }
+}
@@ -0,0 +1,228 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilImplTest {
+
+    UtilImpl util;
+    Config config;
+
+    @BeforeEach
+    void setUp() {
+        setUp(3, 4);
+    }
+
+    private void setUp(int featureSize, int featureCount) {
+        setUp(featureSize, featureCount, Integer.MAX_VALUE);
+    }
+
+    private void setUp(int featureSize, int featureCount, int parallelThreshold) {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("ParallelFindSetsThreshold", Integer.toString(parallelThreshold));
+        config = new Config(new MockLogger(), properties);
+        util = new UtilImpl(config);
+    }
+
+    private void assertFindSetsAgreesWithCombinationSearch(int maxCards, int rounds) {
+
+        Random random = new Random(0);
+        List<Integer> deck = new ArrayList<>();
+        for (int card = 0; card < config.deckSize; ++card)
+            deck.add(card);
+
+        for (int i = 0; i < rounds; ++i) {
+            Collections.shuffle(deck, random);
+            List<Integer> cards = deck.subList(0, random.nextInt(maxCards));
+            int count = i % 2 == 0 ? Integer.MAX_VALUE : 1 + random.nextInt(3);
+
+            List<int[]> expected = util.findSetsByCombinations(cards, count);
+            List<int[]> actual = util.findSets(cards, count);
+            assertEquals(expected.size(), actual.size());
+            for (int j = 0; j < expected.size(); ++j)
+                assertArrayEquals(expected.get(j), actual.get(j));
+        }
+    }
+
+    @Test
+    void testSet_AgreesWithFeatureMatrixOnAllTriples() {
+
+        int[] cards = new int[3];
+        for (cards[0] = 0; cards[0] < config.deckSize; ++cards[0])
+            for (cards[1] = 0; cards[1] < config.deckSize; ++cards[1])
+                for (cards[2] = 0; cards[2] < config.deckSize; ++cards[2])
+                {
+                    assertEquals(util.testSetByFeatures(cards), util.testSet(cards));
+                    assertEquals(util.testSetByFeatures(cards), util.testSetByLanes(cards));
+                }
+    }
+
+    @Test
+    void findSets_CompletionAgreesWithCombinationSearch() {
+
+        assertFindSetsAgreesWithCombinationSearch(config.deckSize / 3, 200);
+    }
+
+    @Test
+    void findSets_BacktrackingAgreesWithCombinationSearch() {
+
+        setUp(4, 3);
+        assertFindSetsAgreesWithCombinationSearch(30, 50);
+        setUp(5, 3);
+        assertFindSetsAgreesWithCombinationSearch(30, 20);
+    }
+
+    @Test
+    void findSets_ParallelAgreesWithSequential() {
+
+        assertParallelFindSetsAgreesWithSequential(3, 6, 100);
+        assertParallelFindSetsAgreesWithSequential(4, 4, 30);
+    }
+
+    private void assertParallelFindSetsAgreesWithSequential(int featureSize, int featureCount, int cardCount) {
+
+        setUp(featureSize, featureCount, 0);
+        List<Integer> deck = new ArrayList<>();
+        for (int card = 0; card < config.deckSize; ++card)
+            deck.add(card);
+        Collections.shuffle(deck, new Random(0));
+
+        List<int[]> expected = util.findSetsByCombinations(deck.subList(0, cardCount), Integer.MAX_VALUE);
+        List<int[]> actual = util.findSets(deck.subList(0, cardCount), Integer.MAX_VALUE);
+        assertEquals(expected.size(), actual.size());
+        for (int j = 0; j < expected.size(); ++j)
+            assertArrayEquals(expected.get(j), actual.get(j));
+
+        // with a count limit the first sets are found, at least one
+        List<int[]> expectedFirst = util.findSetsByCombinations(deck, 10);
+        List<int[]> first = util.findSets(deck, 10);
+        assertEquals(10, first.size());
+        for (int j = 0; j < first.size(); ++j)
+            assertArrayEquals(expectedFirst.get(j), first.get(j));
+        assertEquals(1, util.findSets(deck, 0).size());
+        assertArrayEquals(expectedFirst.get(0), util.findSets(deck, 0).get(0));
+    }
+
+    @Test
+    void streamSets_CountsWithoutFindingAll() {
+
+        List<Integer> deck = new ArrayList<>();
+        for (int card = 0; card < config.deckSize; ++card)
+            deck.add(card);
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+
+        assertEquals(1080, util.streamSets(cards).count());
+        assertEquals(1080, util.streamSets(cards).parallel().count());
+        assertArrayEquals(util.findSets(deck, 1).get(0), util.unpackSet(util.streamSets(cards).findFirst().getAsLong()));
+    }
+
+    @Test
+    void findSets_LargeDeckAgreesWithDeckSizedTables() {
+
+        assertLargeDeckAgreesWithDeckSizedTables(3, 4);
+        assertLargeDeckAgreesWithDeckSizedTables(4, 3);
+    }
+
+    private void assertLargeDeckAgreesWithDeckSizedTables(int featureSize, int featureCount) {
+
+        setUp(featureSize, featureCount);
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("LargeDeckMinSize", "0");
+        UtilImpl large = new UtilImpl(new Config(new MockLogger(), properties));
+
+        Random random = new Random(0);
+        List<Integer> deck = new ArrayList<>();
+        for (int card = 0; card < config.deckSize; ++card)
+            deck.add(card);
+        for (int i = 0; i < 50; ++i) {
+            Collections.shuffle(deck, random);
+            List<Integer> cards = deck.subList(0, random.nextInt(30));
+            List<int[]> expected = util.findSets(cards, Integer.MAX_VALUE);
+            List<int[]> actual = large.findSets(cards, Integer.MAX_VALUE);
+            assertEquals(expected.size(), actual.size());
+            for (int j = 0; j < expected.size(); ++j)
+                assertArrayEquals(expected.get(j), actual.get(j));
+            int[] triple = {deck.get(0), deck.get(1), deck.get(2)};
+            assertEquals(util.testSet(triple), large.testSet(triple));
+        }
+    }
+
+    @Test
+    void setIndex_ContainsEverySetOfTheDeck() {
+
+        SetIndex index = util.setIndex();
+        assertEquals(1080, index.setCount());
+        assertEquals(1080, SetIndex.countSets(config));
+        for (int card = 0; card < config.deckSize; ++card) {
+            assertEquals(40, index.setsOfCard(card));
+            for (int i = 0; i < index.setsOfCard(card); ++i) {
+                int set = index.setOfCard(card, i);
+                int[] cards = {index.card(set, 0), index.card(set, 1), index.card(set, 2)};
+                assertTrue(util.testSet(cards));
+            }
+        }
+
+        setUp(4, 3);
+        Random random = new Random(0);
+        List<Integer> deck = new ArrayList<>();
+        for (int card = 0; card < config.deckSize; ++card)
+            deck.add(card);
+        for (int i = 0; i < 100; ++i) {
+            Collections.shuffle(deck, random);
+            List<Integer> cards = deck.subList(0, random.nextInt(12));
+            boolean expected = !util.findSetsByCombinations(cards, 1).isEmpty();
+            assertEquals(expected, util.containsSet(cards.stream().mapToInt(Integer::intValue).toArray()));
+        }
+    }
+
+    @Test
+    void completeSet_PersistedTableAgreesWithBitParallel(@TempDir Path directory) throws IOException {
+
+        setUp(3, 5);
+        Properties properties = new Properties();
+        properties.put("FeatureCount", "5");
+        properties.put("CompletionTableMinDeckSize", "0");
+        properties.put("CompletionTableFile", directory.resolve("completions.bin").toString());
+        Config persistedConfig = new Config(new MockLogger(), properties);
+        UtilImpl persisted = new UtilImpl(persistedConfig);
+
+        for (int first = 0; first < config.deckSize; ++first)
+            for (int second = 0; second < config.deckSize; ++second)
+                assertEquals(util.completeSet(first, second), persisted.completeSet(first, second));
+
+        // a table of another feature count is regenerated
+        long size = Files.size(persistedConfig.completionTableFile);
+        properties.put("FeatureCount", "4");
+        persistedConfig = new Config(new MockLogger(), properties);
+        persisted = new UtilImpl(persistedConfig);
+        setUp(3, 4);
+        assertEquals(util.completeSet(7, 52), persisted.completeSet(7, 52));
+        assertTrue(Files.size(persistedConfig.completionTableFile) < size);
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArrayDeckTest {
+
+    private static final int TRIALS = 60_000;
+
+    // each count is within 5 standard deviations of a uniform draw
+    private void assertUniform(int[] counts, int draws) {
+        double expected = (double) draws / counts.length;
+        double deviation = Math.sqrt(expected * (1 - 1.0 / counts.length));
+        for (int count : counts)
+            assertTrue(Math.abs(count - expected) < 5 * deviation, Arrays.toString(counts));
+    }
+
+    @Test
+    void draw_InOrderUntilShuffled() {
+
+        ArrayDeck deck = new ArrayDeck(5);
+        assertEquals(0, deck.draw());
+        assertEquals(1, deck.draw());
+
+        deck.add(1); // back in the cards left, drawn next
+        assertEquals(4, deck.size());
+        assertArrayEquals(new int[] {1, 2, 3, 4}, deck.toArray());
+        assertEquals(1, deck.draw());
+
+        deck.add(0);
+        deck.shuffle(); // the cards only move when they are drawn
+        assertArrayEquals(new int[] {0, 2, 3, 4}, deck.toArray());
+    }
+
+    @Test
+    void draw_UniformAfterShuffle() {
+
+        int deckSize = 6;
+        int[] first = new int[deckSize], second = new int[deckSize];
+        for (int trial = 0; trial < TRIALS; ++trial) {
+            ArrayDeck deck = new ArrayDeck(deckSize);
+            deck.shuffle();
+            first[deck.draw()]++;
+            second[deck.draw()]++;
+        }
+        assertUniform(first, TRIALS);
+        assertUniform(second, TRIALS);
+    }
+
+    @Test
+    void add_ReturnedCardsDrawnUniformly() {
+
+        int deckSize = 6;
+        int[] counts = new int[deckSize];
+        ArrayDeck deck = new ArrayDeck(deckSize);
+        deck.shuffle();
+        for (int trial = 0; trial < TRIALS; ++trial) {
+            int[] table = {deck.draw(), deck.draw(), deck.draw()};
+            for (int card : table)
+                deck.add(card); // the table returned to the deck, as on a reshuffle
+            deck.shuffle();
+            int card = deck.draw();
+            counts[card]++;
+            deck.add(card);
+        }
+        assertUniform(counts, TRIALS);
+
+        // every card is still dealt exactly once
+        int[] drawn = new int[deckSize];
+        for (int i = 0; i < deckSize; ++i)
+            drawn[i] = deck.draw();
+        assertTrue(deck.isEmpty());
+        Arrays.sort(drawn);
+        assertArrayEquals(IntStream.range(0, deckSize).toArray(), drawn);
+    }
+}
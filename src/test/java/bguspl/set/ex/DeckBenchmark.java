@@ -0,0 +1,73 @@
+package bguspl.set.ex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the list deck with the array deck on the way the dealer uses a deck: dealing the whole deck after a
+ * shuffle, and reshuffling the cards of the table back into the deck on a stalemate.
+ * Run with: java -cp target/test-classes:target/classes:$CP org.openjdk.jmh.Main DeckBenchmark
+ * where $CP is the test classpath printed by mvn dependency:build-classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeckBenchmark {
+
+    private static final int TABLE_SIZE = 12;
+
+    @Param({"list", "array"})
+    String deckType;
+
+    @Param({"81", "6561"})
+    int deckSize;
+
+    Deck deck;
+    final int[] table = new int[TABLE_SIZE];
+
+    @Setup
+    public void setUp() {
+        deck = deckType.equals("array") ? new ArrayDeck(deckSize) : new ListDeck(deckSize);
+        deck.shuffle();
+        for (int slot = 0; slot < TABLE_SIZE; ++slot)
+            table[slot] = deck.draw();
+    }
+
+    @Benchmark
+    public int dealAll() {
+        int sum = 0;
+        int size = deck.size();
+        int[] dealt = new int[size];
+        deck.shuffle();
+        for (int i = 0; i < size; ++i)
+            sum += dealt[i] = deck.draw();
+        for (int card : dealt)
+            deck.add(card);
+        return sum;
+    }
+
+    @Benchmark
+    public int reshuffleTable() {
+        int sum = 0;
+        for (int card : table)
+            deck.add(card);
+        deck.shuffle();
+        for (int slot = 0; slot < TABLE_SIZE; ++slot)
+            sum += table[slot] = deck.draw();
+        return sum;
+    }
+}
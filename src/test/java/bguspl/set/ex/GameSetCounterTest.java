@@ -0,0 +1,88 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.SetIndex;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameSetCounterTest {
+
+    private void assertCountFollowsCardsLeaving(int featureSize, int featureCount) {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config, logger);
+        GameSetCounter gameSets = new GameSetCounter(new Env(logger, config, new TableTest.MockUserInterface(), util));
+        util.setIndex(); // waits for the background build
+        assertTrue(gameSets.isSupported());
+
+        List<Integer> cards = new ArrayList<>();
+        for (int card = 0; card < config.deckSize; ++card)
+            cards.add(card);
+        Collections.shuffle(cards, new Random(featureSize));
+        while (!cards.isEmpty()) {
+            assertEquals(util.findSets(cards, Integer.MAX_VALUE).size(), gameSets.count());
+            int[] leaving = new int[Math.min(featureSize, cards.size())];
+            for (int i = 0; i < leaving.length; ++i)
+                leaving[i] = cards.remove(cards.size() - 1);
+            gameSets.left(leaving);
+        }
+        assertEquals(0, gameSets.count());
+    }
+
+    @Test
+    void left_ByCompletion() {
+
+        assertCountFollowsCardsLeaving(3, 3);
+    }
+
+    @Test
+    void left_BySetIndex() {
+
+        assertCountFollowsCardsLeaving(4, 2);
+    }
+
+    @Test
+    void left_SetIndexReadyMidGame() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "4");
+        properties.put("FeatureCount", "3");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        AtomicBoolean ready = new AtomicBoolean();
+        Util util = new UtilImpl(config, logger) {
+            @Override
+            public SetIndex readySetIndex() {
+                return ready.get() ? super.readySetIndex() : null;
+            }
+        };
+        GameSetCounter gameSets = new GameSetCounter(new Env(logger, config, new TableTest.MockUserInterface(), util));
+        gameSets.left(new int[] {0, 1, 2, 3});
+        assertFalse(gameSets.isSupported());
+
+        ready.set(true);
+        util.setIndex();
+        List<Integer> cards = new ArrayList<>();
+        for (int card = 4; card < config.deckSize; ++card)
+            cards.add(card);
+        assertTrue(gameSets.isSupported());
+        assertEquals(util.findSets(cards, Integer.MAX_VALUE).size(), gameSets.count());
+    }
+}
@@ -0,0 +1,36 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyDeckTest {
+
+    @Test
+    void draw_EveryCardOnce() {
+
+        int deckSize = 3 * 3 * 3 * 3 * 3;
+        LazyDeck deck = new LazyDeck(deckSize);
+        int[] drawn = new int[deckSize];
+        for (int i = 0; i < 100; ++i)
+            drawn[i] = deck.draw();
+        for (int i = 0; i < 10; ++i)
+            deck.add(drawn[i]); // returned to the deck
+
+        int[] left = deck.toArray();
+        assertEquals(deckSize - 90, deck.size());
+        assertEquals(deck.size(), left.length);
+
+        for (int i = 0; i < deckSize; ++i)
+            if (i < 10 || i >= 100)
+                drawn[i] = deck.draw();
+        assertTrue(deck.isEmpty());
+        Arrays.sort(drawn);
+        assertArrayEquals(IntStream.range(0, deckSize).toArray(), drawn);
+    }
+}
@@ -0,0 +1,52 @@
+package bguspl.set.ex;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A deck holding every card id in a list, drawn from the front: the deck the dealer used before ArrayDeck, kept
+ * as the baseline of DeckBenchmark.
+ */
+class ListDeck implements Deck {
+
+    private final List<Integer> cards;
+
+    /**
+     * @param deckSize - the number of cards in the full deck.
+     */
+    ListDeck(int deckSize) {
+        cards = IntStream.range(0, deckSize).boxed().collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return cards.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return cards.size();
+    }
+
+    @Override
+    public int draw() {
+        return cards.remove(0);
+    }
+
+    @Override
+    public void add(int card) {
+        cards.add(card);
+    }
+
+    @Override
+    public void shuffle() {
+        Collections.shuffle(cards);
+    }
+
+    @Override
+    public int[] toArray() {
+        return cards.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,97 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Compares the throughput of the lock-based table with the actor table: player threads toggle tokens the way
+ * Player.run does on a keypress, while a dealer thread keeps replacing cards.
+ * Run with: java -cp target/test-classes:target/classes:$CP org.openjdk.jmh.Main TableBenchmark
+ * where $CP is the test classpath printed by mvn dependency:build-classpath.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBenchmark {
+
+    @Param({"locks", "actor"})
+    String engine;
+
+    Config config;
+    Table table;
+    final AtomicInteger players = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "64");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("LogLevel", "OFF");
+        Logger logger = Logger.getLogger("benchmark");
+        config = new Config(logger, properties);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config, logger));
+        table = engine.equals("actor") ? new ActorTable(env) : new Table(env);
+
+        int[] slots = new int[config.tableSize];
+        for (int slot = 0; slot < slots.length; ++slot)
+            slots[slot] = slot;
+        table.placeCards(slots.clone(), slots);
+    }
+
+    @State(Scope.Thread)
+    public static class PlayerState {
+
+        int id = -1;
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Benchmark
+    @Group("game")
+    @GroupThreads(7)
+    public boolean player(PlayerState player) {
+        if (player.id < 0)
+            player.id = players.getAndIncrement() % config.players;
+        int slot = player.random.nextInt(config.tableSize);
+        if (table.removeToken(player.id, slot) || !table.hasCardAt(slot)
+                || table.getNumOfTokensOnTable(player.id) >= config.featureSize)
+            return false;
+        table.placeToken(player.id, slot);
+        return true;
+    }
+
+    @Benchmark
+    @Group("game")
+    @GroupThreads(1)
+    public boolean dealer(PlayerState dealer) {
+        int slot = dealer.random.nextInt(config.tableSize);
+        int[] removed = table.removeCards(new int[] {slot});
+        if (removed.length == 0)
+            return false;
+        table.placeCards(removed, new int[] {slot});
+        return table.areAvailableSets();
+    }
+}
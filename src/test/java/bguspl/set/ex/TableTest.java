@@ -2,16 +2,25 @@ package bguspl.set.ex;
 
 import bguspl.set.Config;
 import bguspl.set.Env;
+import bguspl.set.SetIndex;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
+import java.util.stream.LongStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TableTest {
 
@@ -95,6 +104,225 @@ class TableTest {
         placeSomeCardsAndAssert();
     }
 
+    @Test
+    void cardsAndEmptySlots_SomeSlotsAreFilled() {
+
+        int slotsFilled = fillSomeSlots();
+        int[] buffer = new int[slotToCard.length];
+
+        assertEquals(slotsFilled, table.cards(buffer));
+        assertArrayEquals(new int[] {3, 5}, Arrays.copyOf(buffer, slotsFilled));
+        assertEquals(slotToCard.length - slotsFilled, table.emptySlots(buffer));
+        assertEquals(0, buffer[0]);
+        assertEquals(3, buffer[1]);
+    }
+
+    @Test
+    void tokens_RemovedWithTheCard() {
+
+        fillSomeSlots();
+        table.placeToken(0, 1);
+        table.placeToken(0, 2);
+        table.placeToken(1, 1);
+
+        assertEquals(2, table.getNumOfTokensOnTable(0));
+        assertEquals(0, table.getNumOfTokensOnTable(5)); // not a player of the table
+        assertFalse(table.removeToken(5, 1));
+
+        table.removeCard(1);
+        assertArrayEquals(new int[] {2}, table.getTokens(0));
+        assertEquals(0, table.getNumOfTokensOnTable(1));
+    }
+
+    @Test
+    void placeAndRemoveCards_InOneBatch() {
+
+        table.placeCards(new int[] {8, 4}, new int[] {0, 3});
+        assertEquals(8, (int) slotToCard[0]);
+        assertEquals(3, (int) cardToSlot[4]);
+
+        table.placeToken(0, 3);
+        assertArrayEquals(new int[] {4, 8}, table.removeCards(new int[] {3, 1, 0}));
+        assertEquals(0, table.countCards());
+        assertEquals(0, table.getNumOfTokensOnTable(0));
+    }
+
+    @Test
+    void snapshot_PublishedAfterEachChange() {
+
+        TableSnapshot before = table.snapshot();
+        table.placeCards(new int[] {8, 4}, new int[] {0, 3});
+        table.placeToken(1, 3);
+        TableSnapshot after = table.snapshot();
+
+        assertEquals(before.version() + 2, after.version());
+        assertEquals(-1, before.cardAt(0));
+        assertArrayEquals(new int[] {8, 4}, after.cards());
+        assertTrue(after.hasToken(1, 3));
+
+        table.removeCard(3);
+        assertFalse(table.snapshot().hasToken(1, 3));
+        assertTrue(after.hasToken(1, 3)); // snapshots are immutable
+
+        // replacing a card takes the tokens on it, in the live masks as in the snapshot
+        table.placeToken(1, 0);
+        table.placeCard(6, 0);
+        assertEquals(0, table.getNumOfTokensOnTable(1));
+        assertArrayEquals(table.getTokens(1), table.snapshot().tokens(1));
+    }
+
+    private void assertSetCountFollowsChanges(int featureSize, int featureCount) {
+
+        assertSetCountFollowsChanges(featureSize, featureCount, new Properties());
+    }
+
+    private void assertSetCountFollowsChanges(int featureSize, int featureCount, Properties properties) {
+
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("TableDelaySeconds", "0");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config, logger);
+        util.setIndex(); // waits for the background build
+        Table table = new Table(new Env(logger, config, new MockUserInterface(), util));
+
+        Random random = new Random(featureSize);
+        for (int i = 0; i < 500; ++i) {
+            int slot = random.nextInt(config.tableSize);
+            int card = random.nextInt(config.deckSize);
+            if (random.nextInt(3) == 0)
+                table.removeCard(slot);
+            else if (table.snapshot().slotOf(card) == -1)
+                table.placeCard(card, slot);
+            assertEquals(util.findSets(table.getAllCards(), Integer.MAX_VALUE).size(), table.countSets());
+        }
+    }
+
+    @Test
+    void countSets_ByCompletion() {
+
+        assertSetCountFollowsChanges(3, 4);
+    }
+
+    @Test
+    void countSets_BySetIndex() {
+
+        assertSetCountFollowsChanges(4, 3);
+    }
+
+    @Test
+    void countSets_SetIndexReadyMidGame() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "4");
+        properties.put("FeatureCount", "3");
+        properties.put("TableDelaySeconds", "0");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        AtomicBoolean ready = new AtomicBoolean();
+        Util util = new UtilImpl(config, logger) {
+            @Override
+            public SetIndex readySetIndex() {
+                return ready.get() ? super.readySetIndex() : null;
+            }
+        };
+        Table table = new Table(new Env(logger, config, new MockUserInterface(), util));
+        for (int slot = 0; slot < config.tableSize; ++slot)
+            table.placeCard(slot * 5, slot);
+        assertEquals(-1, table.countSets());
+
+        ready.set(true);
+        util.setIndex();
+        table.removeCard(0);
+        assertEquals(util.findSets(table.getAllCards(), Integer.MAX_VALUE).size(), table.countSets());
+        table.placeCard(0, 0);
+        assertEquals(util.findSets(table.getAllCards(), Integer.MAX_VALUE).size(), table.countSets());
+    }
+
+    @Test
+    void countSets_CardsGivenToTestingConstructor() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config, logger);
+        Integer[] slotToCard = new Integer[config.tableSize];
+        Integer[] cardToSlot = new Integer[config.deckSize];
+        int[] cards = {0, 1, util.completeSet(0, 1), 4, 5, util.completeSet(4, 5)};
+        for (int slot = 0; slot < cards.length; ++slot) {
+            slotToCard[slot] = cards[slot];
+            cardToSlot[cards[slot]] = slot;
+        }
+
+        Table table = new Table(new Env(logger, config, new MockUserInterface(), util), slotToCard, cardToSlot);
+        assertEquals(util.findSets(table.getAllCards(), Integer.MAX_VALUE).size(), table.countSets());
+        assertArrayEquals(cards, table.snapshot().cards());
+    }
+
+    @Test
+    void hints_SetsThatCannotBeStreamed() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "5");
+        properties.put("FeatureCount", "6"); // 14 bit card ids, 5 of them do not fit in a long
+        properties.put("TableDelaySeconds", "0");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config, logger);
+        assertFalse(util.canStreamSets());
+        Table table = new Table(new Env(logger, config, new MockUserInterface(), util));
+        for (int slot = 0; slot < config.tableSize; ++slot)
+            table.placeCard(slot, slot);
+
+        table.hints();
+        assertEquals(-1, table.countSets());
+    }
+
+    @Test
+    void countSets_LargeDeckMode() {
+
+        Properties properties = new Properties();
+        properties.put("LargeDeckMinSize", "0"); // slots of the cards hashed
+        assertSetCountFollowsChanges(3, 4, properties);
+    }
+
+    @Test
+    void checkAndRemoveSets_InArrivalOrder() {
+
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "3");
+        properties.put("TableDelaySeconds", "0");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config, logger);
+        Env env = new Env(logger, config, new MockUserInterface(), util);
+        Table table = new Table(env);
+        Dealer dealer = new Dealer(env, table, new Player[config.players]);
+
+        int[] set = {0, 1, util.completeSet(0, 1)};
+        int[] overlapping = {0, 3, util.completeSet(0, 3)};
+        int[] illegal = {9, 10, 12};
+        assertFalse(util.testSet(illegal));
+        int[] cards = {set[0], set[1], set[2], overlapping[1], overlapping[2], illegal[0], illegal[1], illegal[2]};
+        int[] slots = {0, 1, 2, 3, 4, 5, 6, 7};
+        table.placeCards(cards, slots);
+        for (int i = 0; i < 3; ++i) {
+            table.placeToken(1, i);
+            table.placeToken(2, table.snapshot().slotOf(overlapping[i]));
+            table.placeToken(0, table.snapshot().slotOf(illegal[i]));
+        }
+
+        assertArrayEquals(new int[] {Table.CLAIM_WON, Table.CLAIM_VOID, Table.CLAIM_ILLEGAL},
+                table.checkAndRemoveSets(new int[] {1, 2, 0}, dealer));
+        assertEquals(cards.length - 3, table.countCards());
+        assertEquals(-1, table.snapshot().slotOf(set[2]));
+        assertEquals(2, table.getNumOfTokensOnTable(2)); // the token on the shared card was removed with it
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void dispose() {}
@@ -103,6 +331,10 @@ class TableTest {
         @Override
         public void removeCard(int slot) {}
         @Override
+        public void placeCards(int[] cards, int[] slots) {}
+        @Override
+        public void removeCards(int[] slots) {}
+        @Override
         public void setCountdown(long millies, boolean warn) {}
         @Override
         public void setElapsed(long millies) {}
@@ -143,6 +375,41 @@ class TableTest {
             return null;
         }
 
+        @Override
+        public int completeSet(int first, int second) {
+            return -1;
+        }
+
+        @Override
+        public boolean containsSet(int[] cards) {
+            return false;
+        }
+
+        @Override
+        public SetIndex setIndex() {
+            return null;
+        }
+
+        @Override
+        public SetIndex readySetIndex() {
+            return null;
+        }
+
+        @Override
+        public boolean canStreamSets() {
+            return false;
+        }
+
+        @Override
+        public LongStream streamSets(int[] cards) {
+            return LongStream.empty();
+        }
+
+        @Override
+        public int[] unpackSet(long set) {
+            return new int[0];
+        }
+
         @Override
         public void spin() {}
     }